@@ -5,6 +5,7 @@ plugins {
   alias(libs.plugins.indraPublishing)
   alias(libs.plugins.indraPublishingSonatype)
   alias(libs.plugins.errorprone)
+  alias(libs.plugins.jmh)
 }
 
 indra {
@@ -45,6 +46,12 @@ spotless {
   }
 }
 
+jmh {
+  jmhVersion.set(libs.versions.jmh)
+  profilers.add("gc")
+  resultFormat.set("JSON")
+}
+
 tasks.named<Jar>(JavaPlugin.JAR_TASK_NAME) {
   indraGit.applyVcsInformationToManifest(manifest)
 }
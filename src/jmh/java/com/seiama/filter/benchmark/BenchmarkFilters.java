@@ -0,0 +1,95 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.typed.StronglyTypedFilter;
+
+public final class BenchmarkFilters {
+  private BenchmarkFilters() {
+  }
+
+  public record Query(int value) implements FilterQuery {
+  }
+
+  public record OtherQuery(int value) implements FilterQuery {
+  }
+
+  interface Abstract extends StronglyTypedFilter<Query> {
+    @Override
+    default boolean queryableWith(final FilterQuery query) {
+      return query instanceof Query;
+    }
+  }
+
+  public record Equals(int value) implements Abstract {
+    @Override
+    public boolean queryResponse(final Query query) {
+      return query.value() == this.value();
+    }
+  }
+
+  public record Below(int value) implements Abstract {
+    @Override
+    public boolean queryResponse(final Query query) {
+      return query.value() < this.value();
+    }
+  }
+
+  public record Above(int value) implements Abstract {
+    @Override
+    public boolean queryResponse(final Query query) {
+      return query.value() > this.value();
+    }
+  }
+
+  /**
+   * How many leaf types are mixed together, which decides whether the leaf call sites stay mono-, bi- or megamorphic.
+   */
+  public enum Mix {
+    MONOMORPHIC(1),
+    BIMORPHIC(2),
+    MEGAMORPHIC(3);
+
+    private final int types;
+
+    Mix(final int types) {
+      this.types = types;
+    }
+
+    /**
+     * Creates the {@code index}-th leaf, which responds with {@code response} when queried with {@code new Query(0)}.
+     */
+    public Filter leaf(final int index, final FilterResponse response) {
+      final boolean allow = response == FilterResponse.ALLOW;
+      return switch (index % this.types) {
+        case 0 -> new Equals(allow ? 0 : 1);
+        case 1 -> new Below(allow ? 1 : 0);
+        default -> new Above(allow ? -1 : 0);
+      };
+    }
+  }
+}
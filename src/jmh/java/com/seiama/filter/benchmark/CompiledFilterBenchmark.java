@@ -0,0 +1,104 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares compiled filters and filter programs with the filters they were built from, on trees of {@code depth}
+ * alternating {@code all}, {@code any} and {@code not} filters which are queried all the way down, rotating through
+ * several trees so that the interpreted call sites see every leaf type in the {@code mix}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class CompiledFilterBenchmark {
+  private static final int FILTERS = 16;
+  @Param({"5", "10", "20"})
+  public int depth;
+  @Param({"MONOMORPHIC", "MEGAMORPHIC"})
+  public BenchmarkFilters.Mix mix;
+  private final Filter[] interpreted = new Filter[FILTERS];
+  private final Filter[] compiled = new Filter[FILTERS];
+  private final Filter[] program = new Filter[FILTERS];
+  private FilterQuery query;
+  private int index;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < FILTERS; i++) {
+      final Filter filter = this.tree(i, this.depth);
+      this.interpreted[i] = filter;
+      this.compiled[i] = Filter.compile(filter);
+      this.program[i] = Filter.program(filter);
+    }
+    this.query = new BenchmarkFilters.Query(0);
+  }
+
+  @Benchmark
+  public FilterResponse interpreted() {
+    return this.interpreted[this.index++ & FILTERS - 1].query(this.query);
+  }
+
+  @Benchmark
+  public FilterResponse compiled() {
+    return this.compiled[this.index++ & FILTERS - 1].query(this.query);
+  }
+
+  @Benchmark
+  public FilterResponse program() {
+    return this.program[this.index++ & FILTERS - 1].query(this.query);
+  }
+
+  // the leaves beside each subtree never decide, so every level is queried
+  private Filter tree(final int index, final int depth) {
+    final int leaf = index + depth;
+    if (depth == 0) {
+      return this.mix.leaf(leaf, index % 2 == 0 ? FilterResponse.ALLOW : FilterResponse.DENY);
+    }
+    final Filter subtree = this.tree(index, depth - 1);
+    return switch (depth % 3) {
+      case 0 -> Filter.all(this.mix.leaf(leaf, FilterResponse.ALLOW), subtree, this.mix.leaf(leaf + 1, FilterResponse.ALLOW));
+      case 1 -> Filter.any(this.mix.leaf(leaf, FilterResponse.DENY), subtree, this.mix.leaf(leaf + 1, FilterResponse.DENY));
+      default -> Filter.not(subtree);
+    };
+  }
+}
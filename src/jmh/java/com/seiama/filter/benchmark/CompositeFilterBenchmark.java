@@ -0,0 +1,168 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code all}, {@code any} and {@code one} filters over balanced trees of {@code width} children per node and
+ * {@code depth} levels, where every node is decided by the child at {@code position}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class CompositeFilterBenchmark {
+  @Param({"ALL", "ANY", "ONE"})
+  public Kind kind;
+  @Param({"2", "8", "32"})
+  public int width;
+  @Param({"1", "2", "3"})
+  public int depth;
+  @Param({"FIRST", "MIDDLE", "LAST", "NONE"})
+  public Position position;
+  @Param({"MONOMORPHIC", "BIMORPHIC", "MEGAMORPHIC"})
+  public BenchmarkFilters.Mix mix;
+  private Filter filter;
+  private FilterQuery query;
+  private int leaves;
+
+  @Setup
+  public void setup() {
+    this.leaves = 0;
+    this.filter = this.node(this.depth, this.position == Position.NONE ? this.kind.passing : this.kind.deciding);
+    this.query = new BenchmarkFilters.Query(0);
+  }
+
+  @Benchmark
+  public FilterResponse query() {
+    return this.filter.query(this.query);
+  }
+
+  private Filter node(final int depth, final FilterResponse response) {
+    if (depth == 0) {
+      return this.mix.leaf(this.leaves++, response);
+    }
+    final List<Filter> children = new ArrayList<>(this.width);
+    for (int i = 0; i < this.width; i++) {
+      children.add(this.node(depth - 1, this.kind.child(i, this.width, this.position.index(this.width), response)));
+    }
+    return this.kind.compose(children);
+  }
+
+  /**
+   * The composite filter being measured.
+   */
+  public enum Kind {
+    // stops at the first DENY
+    ALL(FilterResponse.DENY, FilterResponse.ALLOW) {
+      @Override
+      Filter compose(final List<Filter> children) {
+        return Filter.all(children);
+      }
+
+      @Override
+      FilterResponse child(final int index, final int width, final int position, final FilterResponse response) {
+        return response == FilterResponse.DENY && index == position ? FilterResponse.DENY : FilterResponse.ALLOW;
+      }
+    },
+    // stops at the first ALLOW
+    ANY(FilterResponse.ALLOW, FilterResponse.DENY) {
+      @Override
+      Filter compose(final List<Filter> children) {
+        return Filter.any(children);
+      }
+
+      @Override
+      FilterResponse child(final int index, final int width, final int position, final FilterResponse response) {
+        return response == FilterResponse.ALLOW && index == position ? FilterResponse.ALLOW : FilterResponse.DENY;
+      }
+    },
+    // stops at the second of two consecutive ALLOW responses, otherwise the last response wins
+    ONE(FilterResponse.DENY, FilterResponse.ALLOW) {
+      @Override
+      Filter compose(final List<Filter> children) {
+        return Filter.one(children);
+      }
+
+      @Override
+      FilterResponse child(final int index, final int width, final int position, final FilterResponse response) {
+        if (response == FilterResponse.DENY) {
+          final int second = Math.max(position, 1);
+          return index == second - 1 || index == second ? FilterResponse.ALLOW : FilterResponse.DENY;
+        }
+        return index == width - 1 ? FilterResponse.ALLOW : FilterResponse.DENY;
+      }
+    };
+
+    final FilterResponse deciding;
+    final FilterResponse passing;
+
+    Kind(final FilterResponse deciding, final FilterResponse passing) {
+      this.deciding = deciding;
+      this.passing = passing;
+    }
+
+    abstract Filter compose(final List<Filter> children);
+
+    abstract FilterResponse child(final int index, final int width, final int position, final FilterResponse response);
+  }
+
+  /**
+   * The position of the child which decides the response of each node.
+   */
+  public enum Position {
+    FIRST,
+    MIDDLE,
+    LAST,
+    NONE;
+
+    int index(final int width) {
+      return switch (this) {
+        case FIRST -> 0;
+        case MIDDLE -> width / 2;
+        case LAST -> width - 1;
+        case NONE -> -1;
+      };
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares an {@code any} filter of {@code rules} equality predicates with an indexed {@code any} filter of the same
+ * rules, rotating through queries which match rules spread across the whole filter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class IndexedAnyFilterBenchmark {
+  private static final int QUERIES = 16;
+  @Param({"10", "1000", "50000"})
+  public int rules;
+  private final FilterQuery[] queries = new FilterQuery[QUERIES];
+  private Filter linear;
+  private Filter indexed;
+  private int index;
+
+  @Setup
+  public void setup() {
+    final List<Filter> predicates = new ArrayList<>(this.rules);
+    final Map<Integer, Filter> rules = new HashMap<>();
+    for (int i = 0; i < this.rules; i++) {
+      predicates.add(new BenchmarkFilters.Equals(i));
+      rules.put(i, Filter.allow());
+    }
+    this.linear = Filter.any(predicates);
+    this.indexed = Filter.indexedAny(BenchmarkFilters.Query.class, BenchmarkFilters.Query::value, rules, List.of());
+    for (int i = 0; i < QUERIES; i++) {
+      this.queries[i] = new BenchmarkFilters.Query((int) ((long) this.rules * i / QUERIES));
+    }
+  }
+
+  @Benchmark
+  public FilterResponse linear() {
+    return this.linear.query(this.queries[this.index++ & QUERIES - 1]);
+  }
+
+  @Benchmark
+  public FilterResponse indexed() {
+    return this.indexed.query(this.queries[this.index++ & QUERIES - 1]);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures chains of {@code depth} nested {@code not} filters, rotating through several chains so that the leaf
+ * call site sees every leaf type in the {@code mix}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class NotFilterBenchmark {
+  private static final int FILTERS = 16;
+  @Param({"1", "2", "8", "32"})
+  public int depth;
+  @Param({"MONOMORPHIC", "BIMORPHIC", "MEGAMORPHIC"})
+  public BenchmarkFilters.Mix mix;
+  private final Filter[] filters = new Filter[FILTERS];
+  private FilterQuery query;
+  private int index;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < FILTERS; i++) {
+      Filter filter = this.mix.leaf(i, i % 2 == 0 ? FilterResponse.ALLOW : FilterResponse.DENY);
+      for (int j = 0; j < this.depth; j++) {
+        filter = Filter.not(filter);
+      }
+      this.filters[i] = filter;
+    }
+    this.query = new BenchmarkFilters.Query(0);
+  }
+
+  @Benchmark
+  public FilterResponse query() {
+    return this.filters[this.index++ & FILTERS - 1].query(this.query);
+  }
+}
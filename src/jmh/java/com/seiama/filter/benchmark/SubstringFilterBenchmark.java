@@ -0,0 +1,115 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.benchmark;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.text.SubstringFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares an {@code any} filter of {@code keywords} {@link String#contains(CharSequence)} predicates with a substring
+ * filter of the same keywords, rotating through texts of which half contain a keyword.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class SubstringFilterBenchmark {
+  private static final int QUERIES = 16;
+  private static final int TEXT_LENGTH = 200;
+  @Param({"10", "1000", "10000"})
+  public int keywords;
+  private final FilterQuery[] queries = new FilterQuery[QUERIES];
+  private Filter linear;
+  private Filter automaton;
+  private int index;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(0);
+    final List<String> keywords = new ArrayList<>(this.keywords);
+    final List<Filter> predicates = new ArrayList<>(this.keywords);
+    for (int i = 0; i < this.keywords; i++) {
+      final String keyword = "keyword" + i + "!";
+      keywords.add(keyword);
+      predicates.add(new Contains(keyword));
+    }
+    this.linear = Filter.any(predicates);
+    this.automaton = SubstringFilter.of(Text.class, Text::text, keywords);
+    for (int i = 0; i < QUERIES; i++) {
+      final StringBuilder text = new StringBuilder(TEXT_LENGTH);
+      while (text.length() < TEXT_LENGTH) {
+        text.append((char) ('a' + random.nextInt(26)));
+      }
+      if (i % 2 == 0) {
+        text.append(keywords.get(random.nextInt(this.keywords)));
+      }
+      this.queries[i] = new Text(text.toString());
+    }
+  }
+
+  @Benchmark
+  public FilterResponse linear() {
+    return this.linear.query(this.queries[this.index++ & QUERIES - 1]);
+  }
+
+  @Benchmark
+  public FilterResponse automaton() {
+    return this.automaton.query(this.queries[this.index++ & QUERIES - 1]);
+  }
+
+  public record Text(String text) implements FilterQuery {
+  }
+
+  public record Contains(String keyword) implements StronglyTypedFilter<Text> {
+    @Override
+    public boolean queryResponse(final Text query) {
+      return query.text().contains(this.keyword);
+    }
+
+    @Override
+    public boolean queryableWith(final FilterQuery query) {
+      return query instanceof Text;
+    }
+  }
+}
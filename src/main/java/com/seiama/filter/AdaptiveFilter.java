@@ -0,0 +1,71 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.Unmodifiable;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that queries the children of an {@link AllFilter} or {@link AnyFilter} in the order most likely to respond
+ * quickly.
+ *
+ * <p>An all filter stops at the first child which denies, and an any filter at the first child which allows. A sample of
+ * queries is used to measure how long each child takes to respond and how often it decides the response, and the
+ * children are periodically reordered so that cheap children which are likely to decide the response come first.
+ * Sampled queries stop early like any other, so only the children they reach are measured; children which have never
+ * been measured are moved to the front, so that they are.</p>
+ *
+ * <p>The response of an all or any filter does not depend on the order of its children, as long as the children are
+ * free of side effects. Children which are not should not be used with an adaptive filter.</p>
+ *
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface AdaptiveFilter extends Filter permits AdaptiveFilterImpl {
+  /**
+   * Gets the original filter.
+   *
+   * <p>The original filter should not be queried manually.</p>
+   *
+   * @return the original filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Filter filter();
+
+  /**
+   * Gets the child filters, in the order they are currently queried in.
+   *
+   * <p>The child filters should not be queried manually.</p>
+   *
+   * @return the child filters
+   * @since 1.0.0
+   */
+  @Unmodifiable
+  List<? extends Filter> filters();
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+final class AdaptiveFilterImpl implements AdaptiveFilter {
+  static final int SAMPLE_RATE = 64;
+  static final int REORDER_INTERVAL = 1024;
+  // weight of the previous measurements when combining them with new ones
+  private static final double DECAY = 0.5;
+  // keeps children which never decide the response ordered by their cost
+  private static final double MINIMUM_PROBABILITY = 1e-6;
+  private final Filter filter;
+  private final FilterResponse deciding;
+  private final FilterResponse other;
+  private final Filter[] filters;
+  private final int sampleRate;
+  private final int reorderInterval;
+  private volatile Order order;
+  private final LongAdder samples = new LongAdder();
+  // how often each child was reached by a sampled query, how often it decided the response, and how long it took
+  private final LongAdder[] reached;
+  private final LongAdder[] decisions;
+  private final LongAdder[] nanos;
+  private final ReentrantLock reorderLock = new ReentrantLock();
+  private final double[] probability; // guarded by reorderLock
+  private final double[] cost; // guarded by reorderLock
+
+  AdaptiveFilterImpl(final Filter filter, final List<? extends Filter> filters, final FilterResponse deciding, final int sampleRate, final int reorderInterval) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("sampleRate must be positive, was " + sampleRate);
+    } else if (reorderInterval < 1) {
+      throw new IllegalArgumentException("reorderInterval must be positive, was " + reorderInterval);
+    }
+    this.filter = filter;
+    this.deciding = deciding;
+    this.other = deciding == FilterResponse.ALLOW ? FilterResponse.DENY : FilterResponse.ALLOW;
+    this.filters = filters.toArray(new Filter[0]);
+    this.sampleRate = sampleRate;
+    this.reorderInterval = reorderInterval;
+    final int[] indices = new int[this.filters.length];
+    this.reached = new LongAdder[this.filters.length];
+    this.decisions = new LongAdder[this.filters.length];
+    this.nanos = new LongAdder[this.filters.length];
+    for (int i = 0; i < this.filters.length; i++) {
+      indices[i] = i;
+      this.reached[i] = new LongAdder();
+      this.decisions[i] = new LongAdder();
+      this.nanos[i] = new LongAdder();
+    }
+    this.probability = new double[this.filters.length];
+    this.cost = new double[this.filters.length];
+    this.order = new Order(this.filters, indices);
+  }
+
+  AdaptiveFilterImpl(final AllFilter filter, final int sampleRate, final int reorderInterval) {
+    this(filter, filter.filters(), FilterResponse.DENY, sampleRate, reorderInterval);
+  }
+
+  AdaptiveFilterImpl(final AnyFilter filter, final int sampleRate, final int reorderInterval) {
+    this(filter, filter.filters(), FilterResponse.ALLOW, sampleRate, reorderInterval);
+  }
+
+  @Override
+  public Filter filter() {
+    return this.filter;
+  }
+
+  @Override
+  public List<? extends Filter> filters() {
+    return List.of(this.order.filters());
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    if (ThreadLocalRandom.current().nextInt(this.sampleRate) == 0) {
+      return this.sample(query);
+    }
+    FilterResponse result = FilterResponse.ABSTAIN;
+    final Filter[] order = this.order.filters();
+    for (int i = 0, length = order.length; i < length; i++) {
+      final FilterResponse response = order[i].query(query);
+      if (response == this.deciding) {
+        return response;
+      } else if (response == this.other) {
+        result = response;
+      }
+    }
+    return result;
+  }
+
+  // queries the children in the current order like any other query, measuring only the children it reaches
+  private FilterResponse sample(final FilterQuery query) {
+    final FilterResponse result = this.measure(query);
+    this.samples.increment();
+    if (this.samples.sum() >= this.reorderInterval && this.reorderLock.tryLock()) {
+      try {
+        this.reorder();
+      } finally {
+        this.reorderLock.unlock();
+      }
+    }
+    return result;
+  }
+
+  private FilterResponse measure(final FilterQuery query) {
+    FilterResponse result = FilterResponse.ABSTAIN;
+    final Order order = this.order;
+    long start = System.nanoTime();
+    for (int i = 0, length = order.indices().length; i < length; i++) {
+      final int index = order.indices()[i];
+      final FilterResponse response = order.filters()[i].query(query);
+      final long end = System.nanoTime();
+      this.reached[index].increment();
+      this.nanos[index].add(end - start);
+      start = end;
+      if (response == this.deciding) {
+        this.decisions[index].increment();
+        return response;
+      } else if (response == this.other) {
+        result = response;
+      }
+    }
+    return result;
+  }
+
+  private void reorder() {
+    final long samples = this.samples.sumThenReset();
+    if (samples == 0) {
+      return;
+    }
+    final int length = this.filters.length;
+    final double[] rank = new double[length];
+    final Integer[] indices = new Integer[length];
+    for (int i = 0; i < length; i++) {
+      // children which were not reached keep their previous measurements, and children which were never reached rank
+      // first, so that they are reached by the next samples
+      final long reached = this.reached[i].sumThenReset();
+      if (reached > 0) {
+        this.probability[i] = DECAY * this.probability[i] + (1 - DECAY) * this.decisions[i].sumThenReset() / reached;
+        this.cost[i] = DECAY * this.cost[i] + (1 - DECAY) * this.nanos[i].sumThenReset() / reached;
+      }
+      // the expected cost of reaching a decision is lowest when children are ordered by cost per decision
+      rank[i] = this.cost[i] / Math.max(this.probability[i], MINIMUM_PROBABILITY);
+      indices[i] = i;
+    }
+    Arrays.sort(indices, Comparator.comparingDouble(index -> rank[index]));
+    final Filter[] filters = new Filter[length];
+    final int[] order = new int[length];
+    for (int i = 0; i < length; i++) {
+      order[i] = indices[i];
+      filters[i] = this.filters[indices[i]];
+    }
+    this.order = new Order(filters, order);
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveFilterImpl[filter=" + this.filter + "]";
+  }
+
+  // the children in the order they are queried in, and the index of each among the original children
+  private record Order(Filter[] filters, int[] indices) {
+  }
+}
@@ -23,6 +23,7 @@
  */
 package com.seiama.filter;
 
+import java.util.Arrays;
 import java.util.List;
 import org.jspecify.annotations.NullMarked;
 
@@ -47,4 +48,32 @@ record AllFilterImpl(List<? extends Filter> filters) implements AllFilter {
     }
     return result;
   }
+
+  @Override
+  public void query(final List<? extends FilterQuery> queries, final FilterResponse[] responses) {
+    FilterBatch.checkSize(queries, responses);
+    final int size = queries.size();
+    Arrays.fill(responses, 0, size, FilterResponse.ABSTAIN);
+    final int[] pending = FilterBatch.indices(size);
+    int pendingSize = size;
+    final FilterResponse[] childResponses = new FilterResponse[size];
+    final List<? extends Filter> filters = this.filters;
+    for (int i = 0, filtersSize = filters.size(); i < filtersSize && pendingSize > 0; i++) {
+      filters.get(i).query(FilterBatch.pending(queries, pending, pendingSize), childResponses);
+      int stillPending = 0;
+      for (int j = 0; j < pendingSize; j++) {
+        final int index = pending[j];
+        final FilterResponse response = childResponses[j];
+        if (response == FilterResponse.DENY) {
+          responses[index] = FilterResponse.DENY;
+        } else {
+          if (response == FilterResponse.ALLOW) {
+            responses[index] = FilterResponse.ALLOW;
+          }
+          pending[stillPending++] = index;
+        }
+      }
+      pendingSize = stillPending;
+    }
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+record AsyncCompositeFilterImpl(Composition composition, List<? extends AsyncFilter> filters) implements AsyncFilter {
+  AsyncCompositeFilterImpl {
+    filters = List.copyOf(filters);
+  }
+
+  @Override
+  public CompletionStage<FilterResponse> queryAsync(final FilterQuery query) {
+    final List<? extends AsyncFilter> filters = this.filters;
+    final int size = filters.size();
+    final Evaluation evaluation = new Evaluation(this.composition, size);
+    final CompletableFuture<?>[] children = new CompletableFuture<?>[size];
+    for (int i = 0; i < size && !evaluation.result.isDone(); i++) {
+      final int index = i;
+      final CompletableFuture<FilterResponse> child = filters.get(i).queryAsync(query).toCompletableFuture();
+      children[i] = child;
+      child.whenComplete((response, failure) -> evaluation.complete(index, response, failure));
+    }
+    evaluation.result.whenComplete((response, failure) -> {
+      for (final CompletableFuture<?> child : children) {
+        if (child != null) {
+          child.cancel(false);
+        }
+      }
+    });
+    return evaluation.result;
+  }
+
+  private static final class Evaluation {
+    final CompletableFuture<FilterResponse> result = new CompletableFuture<>();
+    private final Composition composition;
+    private final @Nullable FilterResponse[] responses; // guarded by this
+    private int remaining; // guarded by this
+
+    Evaluation(final Composition composition, final int size) {
+      this.composition = composition;
+      this.responses = new FilterResponse[size];
+      this.remaining = size;
+      if (size == 0) {
+        this.result.complete(FilterResponse.ABSTAIN);
+      }
+    }
+
+    synchronized void complete(final int index, final @Nullable FilterResponse response, final @Nullable Throwable failure) {
+      if (this.result.isDone()) {
+        return;
+      }
+      if (failure != null || response == null) {
+        this.result.completeExceptionally(failure != null ? failure : new NullPointerException("response"));
+        return;
+      }
+      this.responses[index] = response;
+      if (this.decides(index, response)) {
+        this.result.complete(this.composition.shortCircuit());
+        return;
+      }
+      if (--this.remaining == 0) {
+        FilterResponse state = FilterResponse.ABSTAIN;
+        for (final FilterResponse r : this.responses) {
+          final @Nullable FilterResponse next = this.composition.next(state, r);
+          if (next == null) {
+            this.result.complete(this.composition.shortCircuit());
+            return;
+          }
+          state = next;
+        }
+        this.result.complete(state);
+      }
+    }
+
+    // whether the responses received so far stop the composition early, wherever they are
+    private boolean decides(final int index, final FilterResponse response) {
+      if (this.composition.next(FilterResponse.ABSTAIN, response) == null) {
+        return true;
+      } else if (this.composition != Composition.ONE || response == FilterResponse.DENY) {
+        return false;
+      }
+      // a one filter stops at two allowances with only abstentions between them
+      final FilterResponse previous = this.neighbour(index, -1);
+      final FilterResponse next = this.neighbour(index, 1);
+      if (response == FilterResponse.ALLOW) {
+        return previous == FilterResponse.ALLOW || next == FilterResponse.ALLOW;
+      }
+      return previous == FilterResponse.ALLOW && next == FilterResponse.ALLOW;
+    }
+
+    // the closest response in the given direction which is not an abstention, or null if it has not been received yet
+    private @Nullable FilterResponse neighbour(final int index, final int direction) {
+      for (int i = index + direction; i >= 0 && i < this.responses.length; i += direction) {
+        final @Nullable FilterResponse response = this.responses[i];
+        if (response != FilterResponse.ABSTAIN) {
+          return response;
+        }
+      }
+      return null;
+    }
+  }
+}
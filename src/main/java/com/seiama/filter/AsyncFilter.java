@@ -0,0 +1,164 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.CheckReturnValue;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that responds asynchronously.
+ *
+ * <p>The all, any and one filters query all of their children at once, and respond as soon as the responses received so
+ * far decide the response. Children which have not responded by then are cancelled.</p>
+ *
+ * @since 1.0.0
+ */
+@FunctionalInterface
+@NullMarked
+public interface AsyncFilter {
+  /**
+   * Creates an asynchronous filter that queries {@code filter} on the calling thread.
+   *
+   * @param filter the filter
+   * @return an asynchronous filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter of(final Filter filter) {
+    return new AsyncFilterAdapter(filter, null);
+  }
+
+  /**
+   * Creates an asynchronous filter that queries {@code filter} using {@code executor}.
+   *
+   * @param filter the filter
+   * @param executor the executor
+   * @return an asynchronous filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter of(final Filter filter, final Executor executor) {
+    return new AsyncFilterAdapter(filter, executor);
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#all(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous all filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter all(final AsyncFilter... filters) {
+    return all(List.of(filters));
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#all(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous all filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter all(final List<? extends AsyncFilter> filters) {
+    return new AsyncCompositeFilterImpl(Composition.ALL, filters);
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#any(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous any filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter any(final AsyncFilter... filters) {
+    return any(List.of(filters));
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#any(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous any filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter any(final List<? extends AsyncFilter> filters) {
+    return new AsyncCompositeFilterImpl(Composition.ANY, filters);
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#one(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous one filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter one(final AsyncFilter... filters) {
+    return one(List.of(filters));
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#one(List)}.
+   *
+   * @param filters the filters
+   * @return an asynchronous one filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter one(final List<? extends AsyncFilter> filters) {
+    return new AsyncCompositeFilterImpl(Composition.ONE, filters);
+  }
+
+  /**
+   * Creates an asynchronous filter that responds like {@link Filter#not(Filter)}.
+   *
+   * @param filter a filter
+   * @return an asynchronous not filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AsyncFilter not(final AsyncFilter filter) {
+    return new AsyncNotFilterImpl(filter);
+  }
+
+  /**
+   * Query this filter for a response.
+   *
+   * <p>Cancelling the returned stage cancels any queries still in progress.</p>
+   *
+   * @param query the query
+   * @return a stage completed with the response
+   * @since 1.0.0
+   */
+  @CheckReturnValue
+  CompletionStage<FilterResponse> queryAsync(final FilterQuery query);
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+record AsyncNotFilterImpl(AsyncFilter filter) implements AsyncFilter {
+  @Override
+  public CompletionStage<FilterResponse> queryAsync(final FilterQuery query) {
+    final CompletableFuture<FilterResponse> response = this.filter.queryAsync(query).toCompletableFuture();
+    final CompletableFuture<FilterResponse> result = response.thenApply(r -> switch (r) {
+      case ALLOW -> FilterResponse.DENY;
+      case DENY -> FilterResponse.ALLOW;
+      case ABSTAIN -> FilterResponse.ABSTAIN;
+    });
+    result.whenComplete((r, failure) -> response.cancel(false));
+    return result;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that remembers the responses of another filter.
+ *
+ * <p>Responses are cached by a key extracted from the query, and a bounded number of them are kept. When the cache is
+ * full, a recently unused response is evicted. Responses may also expire a fixed time after they were cached.</p>
+ *
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface CachedFilter extends Filter permits CachedFilterImpl {
+  /**
+   * Gets the filter whose responses are cached.
+   *
+   * <p>The filter should not be queried manually.</p>
+   *
+   * @return the filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Filter filter();
+
+  /**
+   * Gets a snapshot of the statistics of this cache.
+   *
+   * @return the statistics
+   * @since 1.0.0
+   */
+  Stats stats();
+
+  /**
+   * Discards all cached responses.
+   *
+   * @since 1.0.0
+   */
+  void invalidateAll();
+
+  /**
+   * Statistics of a {@link CachedFilter}.
+   *
+   * @param hitCount the number of queries answered from the cache
+   * @param missCount the number of queries answered by the filter
+   * @param evictionCount the number of responses evicted to make room for others
+   * @since 1.0.0
+   */
+  record Stats(long hitCount, long missCount, long evictionCount) {
+    /**
+     * Gets the ratio of queries answered from the cache, or {@code 1} if there have been no queries.
+     *
+     * @return the hit rate
+     * @since 1.0.0
+     */
+    @Contract(pure = true)
+    public double hitRate() {
+      final long queryCount = this.hitCount + this.missCount;
+      return queryCount == 0 ? 1.0 : (double) this.hitCount / queryCount;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// Lookups only touch the concurrent map and the entry, while insertion and eviction are serialized by a lock. Eviction
+// uses the CLOCK algorithm: each lookup marks its entry as referenced, and the clock hand sweeps over the entries,
+// clearing the mark of referenced entries and evicting the first one which is not.
+@NullMarked
+final class CachedFilterImpl implements CachedFilter {
+  private static final long NEVER = -1;
+  // the clock starts small and doubles as entries are added, up to the maximum size
+  private static final int INITIAL_CAPACITY = 16;
+  private final Filter filter;
+  private final Function<? super FilterQuery, ?> key;
+  private final long expireAfterWriteNanos;
+  private final LongSupplier ticker;
+  private final int maximumSize;
+  private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private @Nullable Entry[] clock; // guarded by lock
+  private int hand; // guarded by lock
+  private int size; // guarded by lock
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  CachedFilterImpl(final Filter filter, final Function<? super FilterQuery, ?> key, final int maximumSize, final long expireAfterWriteNanos, final LongSupplier ticker) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize <= 0: " + maximumSize);
+    }
+    this.filter = filter;
+    this.key = key;
+    this.expireAfterWriteNanos = expireAfterWriteNanos;
+    this.ticker = ticker;
+    this.maximumSize = maximumSize;
+    this.clock = new Entry[Math.min(maximumSize, INITIAL_CAPACITY)];
+  }
+
+  CachedFilterImpl(final Filter filter, final Function<? super FilterQuery, ?> key, final int maximumSize) {
+    this(filter, key, maximumSize, NEVER, System::nanoTime);
+  }
+
+  @Override
+  public Filter filter() {
+    return this.filter;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    final Object key = this.key.apply(query);
+    final Entry entry = this.entries.get(key);
+    if (entry != null && !this.expired(entry)) {
+      if (!entry.referenced) {
+        entry.referenced = true;
+      }
+      this.hits.increment();
+      return entry.response;
+    }
+    this.misses.increment();
+    final FilterResponse response = this.filter.query(query);
+    this.put(key, response);
+    return response;
+  }
+
+  private boolean expired(final Entry entry) {
+    return this.expireAfterWriteNanos != NEVER && this.ticker.getAsLong() - entry.written >= this.expireAfterWriteNanos;
+  }
+
+  private void put(final Object key, final FilterResponse response) {
+    final Entry entry = new Entry(key, response, this.expireAfterWriteNanos != NEVER ? this.ticker.getAsLong() : 0);
+    this.lock.lock();
+    try {
+      final Entry previous = this.entries.put(key, entry);
+      if (previous != null) {
+        // the previous entry has expired, or was cached by another thread in the meantime
+        entry.slot = previous.slot;
+        this.clock[entry.slot] = entry;
+        return;
+      }
+      if (this.size < this.maximumSize) {
+        if (this.size == this.clock.length) {
+          this.clock = Arrays.copyOf(this.clock, (int) Math.min(this.maximumSize, this.clock.length * 2L));
+        }
+        entry.slot = this.size;
+        this.clock[this.size++] = entry;
+        return;
+      }
+      // give referenced entries a second chance, and evict the first entry that has not been referenced since
+      Entry victim = this.clock[this.hand];
+      while (victim.referenced && !this.expired(victim)) {
+        victim.referenced = false;
+        this.hand = (this.hand + 1) % this.clock.length;
+        victim = this.clock[this.hand];
+      }
+      this.entries.remove(victim.key, victim);
+      this.evictions.increment();
+      entry.slot = this.hand;
+      this.clock[this.hand] = entry;
+      this.hand = (this.hand + 1) % this.clock.length;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public Stats stats() {
+    return new Stats(this.hits.sum(), this.misses.sum(), this.evictions.sum());
+  }
+
+  @Override
+  public void invalidateAll() {
+    this.lock.lock();
+    try {
+      this.entries.clear();
+      this.clock = new Entry[Math.min(this.maximumSize, INITIAL_CAPACITY)];
+      this.hand = 0;
+      this.size = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CachedFilterImpl[filter=" + this.filter + ", maximumSize=" + this.maximumSize + "]";
+  }
+
+  private static final class Entry {
+    final Object key;
+    final FilterResponse response;
+    final long written;
+    volatile boolean referenced;
+    int slot; // guarded by lock
+
+    Entry(final Object key, final FilterResponse response, final long written) {
+      this.key = key;
+      this.response = response;
+      this.written = written;
+    }
+  }
+}
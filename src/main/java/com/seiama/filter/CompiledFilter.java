@@ -0,0 +1,69 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// The template for compiled filters. FilterCompiler defines a hidden copy of this class for every compiled filter, with
+// the compiled handle and the original filter as its class data, so that HANDLE is a constant specific to that filter.
+// The class itself is never instantiated.
+@NullMarked
+final class CompiledFilter implements Filter {
+  private static final @Nullable MethodHandle HANDLE;
+  private static final @Nullable Filter FILTER;
+
+  static {
+    final @Nullable List<?> data;
+    try {
+      data = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, List.class);
+    } catch (final IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+    HANDLE = data != null ? (MethodHandle) data.get(0) : null;
+    FILTER = data != null ? (Filter) data.get(1) : null;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    try {
+      return (FilterResponse) HANDLE.invokeExact(query);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      // the handle only queries filters, which cannot throw checked exceptions
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledFilter[filter=" + FILTER + "]";
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// The rules by which all, any and one filters combine the responses of their children, as a state machine: the state
+// starts as ABSTAIN, is advanced by each response in order, and is the response once every child has responded - unless
+// a response stops the composition early, in which case the response is the short circuit response.
+@NullMarked
+enum Composition {
+  ALL(FilterResponse.DENY) {
+    @Override
+    @Nullable FilterResponse next(final FilterResponse state, final FilterResponse response) {
+      return switch (response) {
+        case ALLOW -> FilterResponse.ALLOW;
+        case ABSTAIN -> state;
+        case DENY -> null;
+      };
+    }
+  },
+  ANY(FilterResponse.ALLOW) {
+    @Override
+    @Nullable FilterResponse next(final FilterResponse state, final FilterResponse response) {
+      return switch (response) {
+        case ALLOW -> null;
+        case ABSTAIN -> state;
+        case DENY -> FilterResponse.DENY;
+      };
+    }
+  },
+  ONE(FilterResponse.DENY) {
+    @Override
+    @Nullable FilterResponse next(final FilterResponse state, final FilterResponse response) {
+      return switch (response) {
+        case ALLOW -> state == FilterResponse.ALLOW ? null : FilterResponse.ALLOW;
+        case ABSTAIN -> state;
+        case DENY -> FilterResponse.DENY;
+      };
+    }
+  };
+
+  private final FilterResponse shortCircuit;
+
+  Composition(final FilterResponse shortCircuit) {
+    this.shortCircuit = shortCircuit;
+  }
+
+  static @Nullable Composition of(final Filter filter) {
+    if (filter instanceof AllFilter) {
+      return ALL;
+    } else if (filter instanceof AnyFilter) {
+      return ANY;
+    } else if (filter instanceof OneFilter) {
+      return ONE;
+    }
+    return null;
+  }
+
+  static List<? extends Filter> children(final Filter filter) {
+    if (filter instanceof final AllFilter all) {
+      return all.filters();
+    } else if (filter instanceof final AnyFilter any) {
+      return any.filters();
+    } else if (filter instanceof final OneFilter one) {
+      return one.filters();
+    }
+    throw new IllegalArgumentException("Not an all, any or one filter: " + filter);
+  }
+
+  FilterResponse shortCircuit() {
+    return this.shortCircuit;
+  }
+
+  // the next state, or null if the composition stops early
+  abstract @Nullable FilterResponse next(final FilterResponse state, final FilterResponse response);
+
+  Filter compose(final List<? extends Filter> filters) {
+    return switch (this) {
+      case ALL -> new AllFilterImpl(filters);
+      case ANY -> new AnyFilterImpl(filters);
+      case ONE -> new OneFilterImpl(filters);
+    };
+  }
+}
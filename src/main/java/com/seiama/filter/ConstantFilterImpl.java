@@ -23,6 +23,8 @@
  */
 package com.seiama.filter;
 
+import java.util.Arrays;
+import java.util.List;
 import org.jspecify.annotations.NullMarked;
 
 @NullMarked
@@ -35,4 +37,10 @@ record ConstantFilterImpl(FilterResponse response) implements ConstantFilter {
   public FilterResponse query(final FilterQuery query) {
     return this.response;
   }
+
+  @Override
+  public void query(final List<? extends FilterQuery> queries, final FilterResponse[] responses) {
+    FilterBatch.checkSize(queries, responses);
+    Arrays.fill(responses, 0, queries.size(), this.response);
+  }
 }
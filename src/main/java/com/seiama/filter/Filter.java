@@ -23,11 +23,17 @@
  */
 package com.seiama.filter;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.jetbrains.annotations.ApiStatus.NonExtendable;
 import org.jetbrains.annotations.CheckReturnValue;
 import org.jetbrains.annotations.Contract;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 /**
  * A filter is something that can respond with either "yes", "no", or "don't care" to a question.
@@ -175,6 +181,353 @@ public interface Filter {
     return ConstantFilterImpl.DENY;
   }
 
+  /**
+   * Creates a filter that queries the children of {@code filter} in the order most likely to deny quickly.
+   *
+   * <p>One in every 64 queries is measured, and the children are reordered after every 1024 measured queries.</p>
+   *
+   * @param filter the filter
+   * @return an adaptive filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AdaptiveFilter adaptive(final AllFilter filter) {
+    return new AdaptiveFilterImpl(filter, AdaptiveFilterImpl.SAMPLE_RATE, AdaptiveFilterImpl.REORDER_INTERVAL);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in the order most likely to deny quickly.
+   *
+   * <p>On average, one in every {@code sampleRate} queries is measured.</p>
+   *
+   * @param filter the filter
+   * @param sampleRate the number of queries for every query measured
+   * @param reorderInterval the number of measured queries after which the children are reordered
+   * @return an adaptive filter
+   * @throws IllegalArgumentException if {@code sampleRate} or {@code reorderInterval} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AdaptiveFilter adaptive(final AllFilter filter, final int sampleRate, final int reorderInterval) {
+    return new AdaptiveFilterImpl(filter, sampleRate, reorderInterval);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in the order most likely to allow quickly.
+   *
+   * <p>One in every 64 queries is measured, and the children are reordered after every 1024 measured queries.</p>
+   *
+   * @param filter the filter
+   * @return an adaptive filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AdaptiveFilter adaptive(final AnyFilter filter) {
+    return new AdaptiveFilterImpl(filter, AdaptiveFilterImpl.SAMPLE_RATE, AdaptiveFilterImpl.REORDER_INTERVAL);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in the order most likely to allow quickly.
+   *
+   * <p>On average, one in every {@code sampleRate} queries is measured.</p>
+   *
+   * @param filter the filter
+   * @param sampleRate the number of queries for every query measured
+   * @param reorderInterval the number of measured queries after which the children are reordered
+   * @return an adaptive filter
+   * @throws IllegalArgumentException if {@code sampleRate} or {@code reorderInterval} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static AdaptiveFilter adaptive(final AnyFilter filter, final int sampleRate, final int reorderInterval) {
+    return new AdaptiveFilterImpl(filter, sampleRate, reorderInterval);
+  }
+
+  /**
+   * Creates a filter that caches the responses of {@code filter}, keyed by the query.
+   *
+   * <p>Queries must implement {@link Object#equals(Object)} and {@link Object#hashCode()}.</p>
+   *
+   * @param filter the filter
+   * @param maximumSize the maximum number of cached responses
+   * @return a cached filter
+   * @throws IllegalArgumentException if {@code maximumSize} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static CachedFilter cached(final Filter filter, final int maximumSize) {
+    return new CachedFilterImpl(filter, query -> query, maximumSize);
+  }
+
+  /**
+   * Creates a filter that caches the responses of {@code filter}, keyed by {@code key}.
+   *
+   * <p>Queries with equal keys must receive equal responses from {@code filter}.</p>
+   *
+   * @param filter the filter
+   * @param key the key extractor, which must not return {@code null}
+   * @param maximumSize the maximum number of cached responses
+   * @param expireAfterWrite how long a response is cached for, or {@code null} to cache responses until evicted
+   * @return a cached filter
+   * @throws IllegalArgumentException if {@code maximumSize} is not positive, or if {@code expireAfterWrite} is negative
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static CachedFilter cached(final Filter filter, final Function<? super FilterQuery, ?> key, final int maximumSize, final @Nullable Duration expireAfterWrite) {
+    if (expireAfterWrite == null) {
+      return new CachedFilterImpl(filter, key, maximumSize);
+    } else if (expireAfterWrite.isNegative()) {
+      throw new IllegalArgumentException("expireAfterWrite < 0: " + expireAfterWrite);
+    }
+    return new CachedFilterImpl(filter, key, maximumSize, expireAfterWrite.toNanos(), System::nanoTime);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using the common pool.
+   *
+   * @param filter the filter
+   * @return a parallel filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final AllFilter filter) {
+    return new ParallelFilterImpl(filter, ForkJoinPool.commonPool(), ParallelFilterImpl.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using {@code pool}.
+   *
+   * @param filter the filter
+   * @param pool the pool to query the children in
+   * @param threshold the number of children up to which they are queried sequentially
+   * @return a parallel filter
+   * @throws IllegalArgumentException if {@code threshold} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final AllFilter filter, final ForkJoinPool pool, final int threshold) {
+    return new ParallelFilterImpl(filter, pool, threshold);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using the common pool.
+   *
+   * @param filter the filter
+   * @return a parallel filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final AnyFilter filter) {
+    return new ParallelFilterImpl(filter, ForkJoinPool.commonPool(), ParallelFilterImpl.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using {@code pool}.
+   *
+   * @param filter the filter
+   * @param pool the pool to query the children in
+   * @param threshold the number of children up to which they are queried sequentially
+   * @return a parallel filter
+   * @throws IllegalArgumentException if {@code threshold} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final AnyFilter filter, final ForkJoinPool pool, final int threshold) {
+    return new ParallelFilterImpl(filter, pool, threshold);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using the common pool.
+   *
+   * @param filter the filter
+   * @return a parallel filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final OneFilter filter) {
+    return new ParallelFilterImpl(filter, ForkJoinPool.commonPool(), ParallelFilterImpl.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Creates a filter that queries the children of {@code filter} in parallel, using {@code pool}.
+   *
+   * @param filter the filter
+   * @param pool the pool to query the children in
+   * @param threshold the number of children up to which they are queried sequentially
+   * @return a parallel filter
+   * @throws IllegalArgumentException if {@code threshold} is not positive
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static ParallelFilter parallel(final OneFilter filter, final ForkJoinPool pool, final int threshold) {
+    return new ParallelFilterImpl(filter, pool, threshold);
+  }
+
+  /**
+   * Creates a filter that only queries the children of {@code filter} which can respond to the type of the query.
+   *
+   * @param filter the filter
+   * @return a type indexed filter
+   * @see com.seiama.filter.typed.ClassTypedFilter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static TypeIndexedFilter typeIndexed(final AllFilter filter) {
+    return new TypeIndexedFilterImpl(filter, filter.filters(), AllFilterImpl::new);
+  }
+
+  /**
+   * Creates a filter that only queries the children of {@code filter} which can respond to the type of the query.
+   *
+   * @param filter the filter
+   * @return a type indexed filter
+   * @see com.seiama.filter.typed.ClassTypedFilter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static TypeIndexedFilter typeIndexed(final AnyFilter filter) {
+    return new TypeIndexedFilterImpl(filter, filter.filters(), AnyFilterImpl::new);
+  }
+
+  /**
+   * Creates a filter that only queries the children of {@code filter} which can respond to the type of the query.
+   *
+   * @param filter the filter
+   * @return a type indexed filter
+   * @see com.seiama.filter.typed.ClassTypedFilter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static TypeIndexedFilter typeIndexed(final OneFilter filter) {
+    return new TypeIndexedFilterImpl(filter, filter.filters(), OneFilterImpl::new);
+  }
+
+  /**
+   * Creates an any filter of rules which each apply to queries with a single key, and of other filters.
+   *
+   * <p>For queries of {@code queryType}, only the rule for the key of the query is queried, rather than every rule.
+   * The other rules deny such queries, as equality predicates on the key would, and all rules abstain from queries of
+   * other types. The other filters are queried for every query.</p>
+   *
+   * @param queryType the type of queries the rules respond to
+   * @param key the function extracting the key of a query
+   * @param rules the rules, by key
+   * @param filters the other filters
+   * @param <Q> the query type
+   * @param <K> the key type
+   * @return an indexed any filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  @SuppressWarnings("unchecked")
+  static <Q extends FilterQuery, K> IndexedAnyFilter indexedAny(final Class<Q> queryType, final Function<? super Q, ? extends K> key, final Map<? extends K, ? extends Filter> rules, final List<? extends Filter> filters) {
+    return new IndexedAnyFilterImpl(queryType, (Function<Object, ?>) key, rules, filters);
+  }
+
+  /**
+   * Optimizes a filter into a smaller filter that responds identically.
+   *
+   * <p>Nested filters of the same kind are flattened, constant children are folded, double negation is removed, and
+   * children which can never change the response are dropped. Children are assumed to be free of side effects, as the
+   * optimized filter may query them fewer times.</p>
+   *
+   * @param filter the filter
+   * @return an optimized filter, or {@code filter} if it cannot be optimized
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static Filter optimize(final Filter filter) {
+    return FilterOptimizer.optimize(filter);
+  }
+
+  /**
+   * Compiles a filter into a filter that responds identically, but which the JIT can inline as a whole.
+   *
+   * <p>All, any, one, not and constant filters are compiled into a single method handle, so that every child gets a
+   * call site of its own rather than sharing one with the children of every other filter of the same kind. Other filters
+   * are queried as they are, as are filters nested too deeply to compile. Changes to mutable children after compilation
+   * are not seen by the compiled filter.</p>
+   *
+   * @param filter the filter
+   * @return a compiled filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static Filter compile(final Filter filter) {
+    return FilterCompiler.compile(filter);
+  }
+
+  /**
+   * Creates a filter that responds like {@code filter}, but queries each filter instance which appears more than once
+   * in {@code filter} at most once per query.
+   *
+   * <p>Shared filters are found when the filter is created. If no filter instance appears more than once,
+   * {@code filter} is returned.</p>
+   *
+   * @param filter the filter
+   * @return a memoized filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static Filter memoized(final Filter filter) {
+    return MemoizedFilter.memoize(filter);
+  }
+
+  /**
+   * Lowers a filter into a flat program that responds identically.
+   *
+   * <p>All, any, one, not and constant filters are lowered into instructions, which are run by a single loop rather
+   * than by recursive queries, so that filters of any depth can be queried. Other filters are queried as they are.</p>
+   *
+   * @param filter the filter
+   * @return a program
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static FilterProgram program(final Filter filter) {
+    return FilterProgram.lower(filter);
+  }
+
+  /**
+   * Creates a filter that records metrics about {@code filter} and each of its children into {@code sink}.
+   *
+   * <p>The children of all, any, one and not filters are instrumented too. While {@code sink} is disabled,
+   * {@code filter} is queried directly.</p>
+   *
+   * <p>While {@code sink} is enabled and the {@code jdk.jfr} module is available, instrumented filters also emit
+   * {@code com.seiama.filter.SlowEvaluation} events for responses slower than the configured threshold, and
+   * {@code com.seiama.filter.Throughput} events with the responses of each instrumented tree in every period. Both
+   * events are disabled by default.</p>
+   *
+   * @param filter the filter
+   * @param sink the sink to collect the metrics
+   * @return an instrumented filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static InstrumentedFilter instrumented(final Filter filter, final MetricsSink sink) {
+    return new InstrumentedFilterImpl(filter, sink, null, 0);
+  }
+
+  /**
+   * Creates a filter that explains a sample of the queries to {@code filter}, and passes their traces to
+   * {@code consumer}.
+   *
+   * <p>On average, one in every {@code sampleRate} queries is explained. The other queries are not traced.</p>
+   *
+   * @param filter the filter
+   * @param sampleRate the number of queries for every query explained
+   * @param consumer the consumer of the traces
+   * @return a traced filter
+   * @throws IllegalArgumentException if {@code sampleRate} is not positive
+   * @see #explain(FilterQuery)
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  static Filter traced(final Filter filter, final int sampleRate, final Consumer<? super FilterTrace> consumer) {
+    return new TracedFilterImpl(filter, sampleRate, consumer);
+  }
+
   /**
    * Query this filter for a response.
    *
@@ -185,6 +538,40 @@ public interface Filter {
   @CheckReturnValue
   FilterResponse query(final FilterQuery query);
 
+  /**
+   * Query this filter for a response, and trace how the response was reached.
+   *
+   * <p>The children of all, any, one and not filters are explained too. Explaining is slower than querying, and
+   * allocates, so it should only be used when the trace is needed.</p>
+   *
+   * @param query the query
+   * @return the trace, including the response
+   * @see #traced(Filter, int, Consumer)
+   * @since 1.0.0
+   */
+  @CheckReturnValue
+  default FilterTrace explain(final FilterQuery query) {
+    return FilterExplainer.explain(this, query);
+  }
+
+  /**
+   * Query this filter for a response to each of the queries.
+   *
+   * <p>The response to {@code queries.get(i)} is stored in {@code responses[i]}. Composite filters query each child for
+   * all of the queries that have not been decided yet, rather than querying the whole tree for one query at a time.</p>
+   *
+   * @param queries the queries
+   * @param responses the array to store the responses in
+   * @throws IllegalArgumentException if {@code responses} is shorter than {@code queries}
+   * @since 1.0.0
+   */
+  default void query(final List<? extends FilterQuery> queries, final FilterResponse[] responses) {
+    FilterBatch.checkSize(queries, responses);
+    for (int i = 0, size = queries.size(); i < size; i++) {
+      responses[i] = this.query(queries.get(i));
+    }
+  }
+
   /**
    * Query this filter for a response.
    *
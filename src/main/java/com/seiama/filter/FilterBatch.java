@@ -0,0 +1,81 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+final class FilterBatch {
+  private FilterBatch() {
+  }
+
+  static void checkSize(final List<? extends FilterQuery> queries, final FilterResponse[] responses) {
+    if (responses.length < queries.size()) {
+      throw new IllegalArgumentException("Cannot store " + queries.size() + " responses in an array of length " + responses.length);
+    }
+  }
+
+  static int[] indices(final int size) {
+    final int[] indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      indices[i] = i;
+    }
+    return indices;
+  }
+
+  // a view of the queries which have not been decided yet - indices are only ever removed, never reordered, so a
+  // view of every index is the queries themselves
+  static List<? extends FilterQuery> pending(final List<? extends FilterQuery> queries, final int[] indices, final int size) {
+    if (size == queries.size()) {
+      return queries;
+    }
+    return new Pending(queries, indices, size);
+  }
+
+  private static final class Pending extends AbstractList<FilterQuery> implements RandomAccess {
+    private final List<? extends FilterQuery> queries;
+    private final int[] indices;
+    private final int size;
+
+    Pending(final List<? extends FilterQuery> queries, final int[] indices, final int size) {
+      this.queries = queries;
+      this.indices = indices;
+      this.size = size;
+    }
+
+    @Override
+    public FilterQuery get(final int index) {
+      return this.queries.get(this.indices[Objects.checkIndex(index, this.size)]);
+    }
+
+    @Override
+    public int size() {
+      return this.size;
+    }
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Writes and reads filters in a compact binary format.
+ *
+ * <p>All, any, one, not and constant filters are written by the codec itself, and leaves by the {@link LeafCodec}
+ * registered for their exact class. A filter instance which appears more than once is written once, and referred to
+ * afterwards, so shared subtrees are shared again when read. Filters of any depth can be written and read.</p>
+ *
+ * <p>The format starts with a magic number and a version. Each node is then written in depth-first order as a tag
+ * followed by its contents:</p>
+ * <ul>
+ *   <li>{@code ALL}, {@code ANY} and {@code ONE} are followed by the number of children, then the children;</li>
+ *   <li>{@code NOT} is followed by its child;</li>
+ *   <li>{@code CONST} is followed by the ordinal of its {@link FilterResponse};</li>
+ *   <li>{@code LEAF} is followed by the index of its leaf codec, then by the id of the codec if it has not appeared
+ *   before, then by the leaf as written by the codec;</li>
+ *   <li>{@code REFERENCE} is followed by the index of a node written before, numbering all, any, one, not and leaf
+ *   nodes in the order they were completed.</li>
+ * </ul>
+ * <p>Numbers are written as unsigned variable-length integers.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class FilterCodec {
+  private static final int MAGIC = 0x46_49_4C_54; // "FILT"
+  private static final int VERSION = 1;
+  private static final int ALL = 0;
+  private static final int ANY = 1;
+  private static final int ONE = 2;
+  private static final int NOT = 3;
+  private static final int CONST = 4;
+  private static final int LEAF = 5;
+  private static final int REFERENCE = 6;
+  private static final Composition[] COMPOSITIONS = {Composition.ALL, Composition.ANY, Composition.ONE};
+  private static final FilterResponse[] RESPONSES = FilterResponse.values();
+  // the most children allocated for a filter before any of them has been read
+  private static final int INITIAL_CHILDREN = 16;
+  private final Map<Class<?>, LeafType<?>> types;
+  private final Map<String, LeafType<?>> ids;
+
+  private FilterCodec(final Map<Class<?>, LeafType<?>> types, final Map<String, LeafType<?>> ids) {
+    this.types = types;
+    this.ids = ids;
+  }
+
+  /**
+   * Creates a codec without leaf codecs, which can only write filters made of all, any, one, not and constant filters.
+   *
+   * @return a codec
+   * @since 1.0.0
+   */
+  @Contract(value = "-> new", pure = true)
+  public static FilterCodec create() {
+    return new FilterCodec(Map.of(), Map.of());
+  }
+
+  /**
+   * Creates a codec which also writes and reads leaves of a type.
+   *
+   * @param id the id of the leaf codec, written with the first leaf of the type
+   * @param type the exact class of the leaves
+   * @param codec the leaf codec
+   * @param <F> the leaf type
+   * @return a codec
+   * @throws IllegalArgumentException if a leaf codec with the same id or type was already registered
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public <F extends Filter> FilterCodec withLeaf(final String id, final Class<F> type, final LeafCodec<F> codec) {
+    if (this.ids.containsKey(id)) {
+      throw new IllegalArgumentException("A leaf codec with id " + id + " was already registered");
+    } else if (this.types.containsKey(type)) {
+      throw new IllegalArgumentException("A leaf codec for " + type.getName() + " was already registered");
+    }
+    final LeafType<F> leafType = new LeafType<>(id, codec);
+    final Map<Class<?>, LeafType<?>> types = new HashMap<>(this.types);
+    final Map<String, LeafType<?>> ids = new HashMap<>(this.ids);
+    types.put(type, leafType);
+    ids.put(id, leafType);
+    return new FilterCodec(Map.copyOf(types), Map.copyOf(ids));
+  }
+
+  /**
+   * Writes a filter.
+   *
+   * @param filter the filter
+   * @param output the output
+   * @throws IOException if the filter could not be written
+   * @throws IllegalArgumentException if no leaf codec is registered for a leaf of the filter
+   * @since 1.0.0
+   */
+  public void write(final Filter filter, final DataOutput output) throws IOException {
+    output.writeInt(MAGIC);
+    writeVarInt(output, VERSION);
+    final Map<Filter, Integer> nodes = new IdentityHashMap<>();
+    final Map<LeafType<?>, Integer> leafTypes = new IdentityHashMap<>();
+    final Deque<WriteFrame> stack = new ArrayDeque<>();
+    @Nullable WriteFrame frame = this.writeNode(filter, output, nodes, leafTypes);
+    while (frame != null || !stack.isEmpty()) {
+      if (frame != null) {
+        stack.push(frame);
+      }
+      final WriteFrame top = stack.element();
+      if (top.next < top.children.size()) {
+        frame = this.writeNode(top.children.get(top.next++), output, nodes, leafTypes);
+      } else {
+        stack.pop();
+        nodes.put(top.filter, nodes.size());
+        frame = null;
+      }
+    }
+  }
+
+  // writes a node, or the start of a node whose children are still to be written
+  private @Nullable WriteFrame writeNode(final Filter filter, final DataOutput output, final Map<Filter, Integer> nodes, final Map<LeafType<?>, Integer> leafTypes) throws IOException {
+    final @Nullable Integer reference = nodes.get(filter);
+    if (reference != null) {
+      writeVarInt(output, REFERENCE);
+      writeVarInt(output, reference);
+      return null;
+    }
+    final @Nullable Composition composition = Composition.of(filter);
+    if (composition != null) {
+      final List<? extends Filter> children = Composition.children(filter);
+      writeVarInt(output, composition.ordinal());
+      writeVarInt(output, children.size());
+      return new WriteFrame(filter, children);
+    } else if (filter instanceof final NotFilter not) {
+      writeVarInt(output, NOT);
+      return new WriteFrame(filter, List.of(not.filter()));
+    } else if (filter instanceof final ConstantFilter constant) {
+      writeVarInt(output, CONST);
+      writeVarInt(output, constant.response().ordinal());
+      return null;
+    }
+    final @Nullable LeafType<?> type = this.types.get(filter.getClass());
+    if (type == null) {
+      throw new IllegalArgumentException("No leaf codec is registered for " + filter.getClass().getName());
+    }
+    writeVarInt(output, LEAF);
+    final @Nullable Integer index = leafTypes.get(type);
+    if (index != null) {
+      writeVarInt(output, index);
+    } else {
+      writeVarInt(output, leafTypes.size());
+      output.writeUTF(type.id());
+      leafTypes.put(type, leafTypes.size());
+    }
+    type.write(filter, output);
+    nodes.put(filter, nodes.size());
+    return null;
+  }
+
+  /**
+   * Reads a filter written by {@link #write(Filter, DataOutput)}.
+   *
+   * @param input the input
+   * @return the filter
+   * @throws IOException if the filter could not be read, or was not written in a supported format
+   * @since 1.0.0
+   */
+  public Filter read(final DataInput input) throws IOException {
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Not a filter");
+    }
+    final int version = readVarInt(input);
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version + ", expected " + VERSION);
+    }
+    final List<Filter> nodes = new ArrayList<>();
+    final List<LeafType<?>> leafTypes = new ArrayList<>();
+    final Deque<ReadFrame> stack = new ArrayDeque<>();
+    while (true) {
+      final int tag = readVarInt(input);
+      @Nullable Filter filter = null;
+      switch (tag) {
+        case ALL, ANY, ONE -> {
+          final int size = readVarInt(input);
+          if (size == 0) {
+            filter = COMPOSITIONS[tag].compose(List.of());
+            nodes.add(filter);
+          } else {
+            stack.push(new ReadFrame(tag, size));
+          }
+        }
+        case NOT -> stack.push(new ReadFrame(tag, 1));
+        case CONST -> {
+          final int response = readVarInt(input);
+          if (response >= RESPONSES.length) {
+            throw new IOException("Unknown response " + response);
+          }
+          filter = Filter.always(RESPONSES[response]);
+        }
+        case LEAF -> {
+          filter = this.readLeaf(input, leafTypes);
+          nodes.add(filter);
+        }
+        case REFERENCE -> {
+          final int reference = readVarInt(input);
+          if (reference >= nodes.size()) {
+            throw new IOException("Reference to unknown node " + reference);
+          }
+          filter = nodes.get(reference);
+        }
+        default -> throw new IOException("Unknown tag " + tag);
+      }
+      // hand the node to the filters whose children it completes
+      while (filter != null) {
+        final @Nullable ReadFrame top = stack.peek();
+        if (top == null) {
+          return filter;
+        }
+        if (top.add(filter)) {
+          filter = null;
+        } else {
+          stack.pop();
+          filter = top.tag == NOT ? new NotFilterImpl(top.children[0]) : COMPOSITIONS[top.tag].compose(Arrays.asList(top.children));
+          nodes.add(filter);
+        }
+      }
+    }
+  }
+
+  private Filter readLeaf(final DataInput input, final List<LeafType<?>> leafTypes) throws IOException {
+    final int index = readVarInt(input);
+    if (index == leafTypes.size()) {
+      final String id = input.readUTF();
+      final @Nullable LeafType<?> type = this.ids.get(id);
+      if (type == null) {
+        throw new IOException("No leaf codec is registered for id " + id);
+      }
+      leafTypes.add(type);
+    } else if (index > leafTypes.size()) {
+      throw new IOException("Unknown leaf codec " + index);
+    }
+    return leafTypes.get(index).codec().read(input);
+  }
+
+  /**
+   * Writes a filter into a buffer, from its position.
+   *
+   * @param filter the filter
+   * @param buffer the buffer
+   * @throws java.nio.BufferOverflowException if the buffer is too small
+   * @throws IllegalArgumentException if no leaf codec is registered for a leaf of the filter
+   * @since 1.0.0
+   */
+  public void write(final Filter filter, final ByteBuffer buffer) {
+    try {
+      this.write(filter, new DataOutputStream(new OutputStream() {
+        @Override
+        public void write(final int b) {
+          buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+          buffer.put(bytes, offset, length);
+        }
+      }));
+    } catch (final IOException e) {
+      // a buffer is never closed, and throws unchecked exceptions when it is full
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads a filter from a buffer, from its position.
+   *
+   * @param buffer the buffer
+   * @return the filter
+   * @throws IOException if the filter could not be read, or was not written in a supported format
+   * @since 1.0.0
+   */
+  public Filter read(final ByteBuffer buffer) throws IOException {
+    return this.read(new DataInputStream(new InputStream() {
+      @Override
+      public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(final byte[] bytes, final int offset, final int length) {
+        if (length == 0) {
+          return 0;
+        } else if (!buffer.hasRemaining()) {
+          return -1;
+        }
+        final int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        return read;
+      }
+    }));
+  }
+
+  private static void writeVarInt(final DataOutput output, final int value) throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      output.writeByte(remaining & 0x7F | 0x80);
+      remaining >>>= 7;
+    }
+    output.writeByte(remaining);
+  }
+
+  private static int readVarInt(final DataInput input) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      final byte b = input.readByte();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        // every number in the format is an index or a size
+        if (value < 0) {
+          throw new IOException("Negative variable-length integer " + value);
+        }
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable-length integer");
+  }
+
+  private record LeafType<F extends Filter>(String id, LeafCodec<F> codec) {
+    @SuppressWarnings("unchecked")
+    void write(final Filter filter, final DataOutput output) throws IOException {
+      this.codec.write((F) filter, output);
+    }
+  }
+
+  private static final class WriteFrame {
+    final Filter filter;
+    final List<? extends Filter> children;
+    int next;
+
+    WriteFrame(final Filter filter, final List<? extends Filter> children) {
+      this.filter = filter;
+      this.children = children;
+    }
+  }
+
+  private static final class ReadFrame {
+    final int tag;
+    final int size;
+    // grown as children are read, so that a corrupt size cannot allocate more than the input holds
+    Filter[] children;
+    int next;
+
+    ReadFrame(final int tag, final int size) {
+      this.tag = tag;
+      this.size = size;
+      this.children = new Filter[Math.min(size, INITIAL_CHILDREN)];
+    }
+
+    // adds a child, and returns whether more children are expected
+    boolean add(final Filter child) {
+      if (this.next == this.children.length) {
+        this.children = Arrays.copyOf(this.children, (int) Math.min(this.size, 2L * this.children.length));
+      }
+      this.children[this.next++] = child;
+      return this.next < this.size;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// Compiles a filter tree into a single method handle, and binds the handle to its own hidden copy of CompiledFilter so
+// that the JIT sees it as a constant and can inline the whole tree, with a call site of its own for every child.
+@NullMarked
+final class FilterCompiler {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType QUERY_TYPE = MethodType.methodType(FilterResponse.class, FilterQuery.class);
+  private static final MethodType STATE_TYPE = MethodType.methodType(FilterResponse.class, FilterQuery.class, FilterResponse.class);
+  private static final MethodHandle QUERY;
+  private static final MethodHandle NEXT;
+  private static final MethodHandle IS_NULL;
+  private static final MethodHandle NOT;
+  private static final MethodHandle SETTLE;
+  // the most steps chained in a single handle, and the deepest filters compiled into the handle
+  private static final int CHUNK = 32;
+  private static final int MAX_DEPTH = 32;
+
+  static {
+    try {
+      QUERY = LOOKUP.findVirtual(Filter.class, "query", QUERY_TYPE);
+      NEXT = LOOKUP.findVirtual(Composition.class, "next", MethodType.methodType(FilterResponse.class, FilterResponse.class, FilterResponse.class));
+      IS_NULL = LOOKUP.findStatic(Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class))
+        .asType(MethodType.methodType(boolean.class, FilterResponse.class));
+      NOT = LOOKUP.findStatic(FilterCompiler.class, "not", MethodType.methodType(FilterResponse.class, FilterResponse.class));
+      SETTLE = LOOKUP.findStatic(FilterCompiler.class, "settle", MethodType.methodType(FilterResponse.class, Composition.class, FilterResponse.class));
+    } catch (final ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private FilterCompiler() {
+  }
+
+  static Filter compile(final Filter filter) {
+    final MethodHandle handle = handle(filter, 0);
+    final byte @Nullable [] template = Template.BYTES;
+    if (template != null) {
+      try {
+        final Class<?> type = LOOKUP.defineHiddenClassWithClassData(template, List.of(handle, filter), true).lookupClass();
+        return (Filter) type.getDeclaredConstructor().newInstance();
+      } catch (final ReflectiveOperationException | LinkageError e) {
+        // fall back to invoking the handle from a field, which still inlines the tree below the root
+      }
+    }
+    return new HandleFilter(filter, handle);
+  }
+
+  // a handle of type (FilterQuery)FilterResponse which responds like filter, querying filters deeper than MAX_DEPTH as
+  // they are so that neither compiling nor querying the handle can overflow the stack
+  private static MethodHandle handle(final Filter filter, final int depth) {
+    if (filter instanceof final ConstantFilter constant) {
+      return MethodHandles.dropArguments(MethodHandles.constant(FilterResponse.class, constant.response()), 0, FilterQuery.class);
+    } else if (depth >= MAX_DEPTH) {
+      return QUERY.bindTo(filter);
+    } else if (filter instanceof final NotFilter not) {
+      return MethodHandles.filterReturnValue(handle(not.filter(), depth + 1), NOT);
+    }
+    final @Nullable Composition composition = Composition.of(filter);
+    if (composition == null) {
+      return QUERY.bindTo(filter);
+    }
+    final MethodHandle next = NEXT.bindTo(composition);
+    List<MethodHandle> steps = new ArrayList<>();
+    for (final Filter child : Composition.children(filter)) {
+      // (query, state) -> next(state, child(query))
+      steps.add(MethodHandles.permuteArguments(MethodHandles.filterArguments(next, 1, handle(child, depth + 1)), STATE_TYPE, 1, 0));
+    }
+    // chain the steps in chunks, and those chunks in chunks of their own, so that the handle nests no deeper than
+    // CHUNK steps for every level of chunks rather than one level for every child
+    while (steps.size() > CHUNK) {
+      final List<MethodHandle> chunks = new ArrayList<>((steps.size() + CHUNK - 1) / CHUNK);
+      for (int i = 0; i < steps.size(); i += CHUNK) {
+        chunks.add(chain(steps.subList(i, Math.min(i + CHUNK, steps.size()))));
+      }
+      steps = chunks;
+    }
+    return MethodHandles.insertArguments(MethodHandles.filterReturnValue(chain(steps), SETTLE.bindTo(composition)), 1, FilterResponse.ABSTAIN);
+  }
+
+  // a handle of type (FilterQuery, FilterResponse state)FilterResponse which advances the state through each step in
+  // turn, returning null as soon as a step stops the composition
+  private static MethodHandle chain(final List<MethodHandle> steps) {
+    // (next, query, state) -> next
+    final MethodHandle stop = MethodHandles.dropArguments(MethodHandles.identity(FilterResponse.class), 1, FilterQuery.class, FilterResponse.class);
+    final MethodHandle stops = MethodHandles.dropArguments(IS_NULL, 1, FilterQuery.class, FilterResponse.class);
+    // the last state is the result
+    MethodHandle rest = MethodHandles.dropArguments(MethodHandles.identity(FilterResponse.class), 0, FilterQuery.class);
+    for (int i = steps.size() - 1; i >= 0; i--) {
+      // (next, query, state) -> next == null ? null : rest(query, next)
+      final MethodHandle decide = MethodHandles.guardWithTest(
+        stops,
+        stop,
+        MethodHandles.permuteArguments(rest, MethodType.methodType(FilterResponse.class, FilterResponse.class, FilterQuery.class, FilterResponse.class), 1, 0)
+      );
+      rest = MethodHandles.foldArguments(decide, steps.get(i));
+    }
+    return rest;
+  }
+
+  private static FilterResponse settle(final Composition composition, final @Nullable FilterResponse state) {
+    return state != null ? state : composition.shortCircuit();
+  }
+
+  private static FilterResponse not(final FilterResponse response) {
+    return switch (response) {
+      case ALLOW -> FilterResponse.DENY;
+      case DENY -> FilterResponse.ALLOW;
+      case ABSTAIN -> FilterResponse.ABSTAIN;
+    };
+  }
+
+  private record HandleFilter(Filter filter, MethodHandle handle) implements Filter {
+    @Override
+    public FilterResponse query(final FilterQuery query) {
+      try {
+        return (FilterResponse) this.handle.invokeExact(query);
+      } catch (final RuntimeException | Error e) {
+        throw e;
+      } catch (final Throwable e) {
+        // the handle only queries filters, which cannot throw checked exceptions
+        throw new UndeclaredThrowableException(e);
+      }
+    }
+  }
+
+  private static final class Template {
+    // the class file of CompiledFilter, or null if it cannot be read
+    static final byte @Nullable [] BYTES = read();
+
+    private static byte @Nullable [] read() {
+      try (final InputStream stream = CompiledFilter.class.getResourceAsStream(CompiledFilter.class.getSimpleName() + ".class")) {
+        return stream != null ? stream.readAllBytes() : null;
+      } catch (final IOException e) {
+        return null;
+      }
+    }
+  }
+}
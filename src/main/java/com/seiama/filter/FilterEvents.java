@@ -0,0 +1,55 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Optional;
+import org.jspecify.annotations.NullMarked;
+
+// Emits JDK Flight Recorder events for instrumented filters. The jdk.jfr module is optional, so the events are only
+// referenced from JfrFilterEvents, which is only loaded when the module can be read.
+@NullMarked
+class FilterEvents {
+  static final FilterEvents INSTANCE = create();
+
+  private static FilterEvents create() {
+    final Optional<Module> jfr = ModuleLayer.boot().findModule("jdk.jfr");
+    if (jfr.isPresent() && FilterEvents.class.getModule().canRead(jfr.get())) {
+      try {
+        return new JfrFilterEvents();
+      } catch (final LinkageError e) {
+        // fall through to no events
+      }
+    }
+    return new FilterEvents();
+  }
+
+  // evaluates an instrumented filter, returning its outcome
+  int evaluate(final InstrumentedFilterImpl filter, final FilterQuery query) {
+    return filter.evaluate(query);
+  }
+
+  // registers the metrics of the root of an instrumented tree
+  void register(final FilterMetrics metrics) {
+  }
+}
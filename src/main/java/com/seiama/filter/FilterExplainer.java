@@ -0,0 +1,67 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+final class FilterExplainer {
+  private FilterExplainer() {
+  }
+
+  static FilterTrace explain(final Filter filter, final FilterQuery query) {
+    final @Nullable Composition composition = Composition.of(filter);
+    if (composition != null) {
+      return explain(filter, composition, Composition.children(filter), query);
+    } else if (filter instanceof final NotFilter not) {
+      final FilterTrace child = not.filter().explain(query);
+      final FilterResponse response = switch (child.response()) {
+        case ALLOW -> FilterResponse.DENY;
+        case DENY -> FilterResponse.ALLOW;
+        case ABSTAIN -> FilterResponse.ABSTAIN;
+      };
+      return new FilterTrace(filter, response, List.of(child), -1, List.of());
+    }
+    return new FilterTrace(filter, filter.query(query), List.of(), -1, List.of());
+  }
+
+  private static FilterTrace explain(final Filter filter, final Composition composition, final List<? extends Filter> filters, final FilterQuery query) {
+    final int size = filters.size();
+    final List<FilterTrace> children = new ArrayList<>(size);
+    FilterResponse state = FilterResponse.ABSTAIN;
+    for (int i = 0; i < size; i++) {
+      final FilterTrace child = filters.get(i).explain(query);
+      children.add(child);
+      final @Nullable FilterResponse next = composition.next(state, child.response());
+      if (next == null) {
+        return new FilterTrace(filter, composition.shortCircuit(), children, i, filters.subList(i + 1, size));
+      }
+      state = next;
+    }
+    return new FilterTrace(filter, state, children, -1, List.of());
+  }
+}
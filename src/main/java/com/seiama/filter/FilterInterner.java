@@ -0,0 +1,324 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Canonicalizes filters, so that equal subtrees of any number of filters are shared as a single instance.
+ *
+ * <p>Filters are interned from their leaves up: leaves are canonicalized by {@link Object#equals(Object)}, and all,
+ * any, one and not filters by their kind and the identity of their canonical children, so interning a filter hashes
+ * each of its nodes once, rather than every subtree below each node. The interner only holds its canonical filters
+ * weakly, and may be used by any number of threads.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class FilterInterner {
+  private final ConcurrentHashMap<Node, Node> nodes = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Filter> queue = new ReferenceQueue<>();
+
+  private FilterInterner() {
+  }
+
+  /**
+   * Creates an empty interner.
+   *
+   * @return an interner
+   * @since 1.0.0
+   */
+  @Contract(value = "-> new", pure = true)
+  public static FilterInterner create() {
+    return new FilterInterner();
+  }
+
+  /**
+   * Gets the canonical instance of a filter, which responds to every query as the filter does.
+   *
+   * @param filter the filter
+   * @return the canonical filter
+   * @since 1.0.0
+   */
+  public Filter intern(final Filter filter) {
+    this.expunge();
+    return this.canonical(filter);
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#all(Filter...)}.
+   *
+   * @param filters the filters
+   * @return an interned all filter
+   * @since 1.0.0
+   */
+  public AllFilter all(final Filter... filters) {
+    return this.all(List.of(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#all(List)}.
+   *
+   * @param filters the filters
+   * @return an interned all filter
+   * @since 1.0.0
+   */
+  public AllFilter all(final List<? extends Filter> filters) {
+    return (AllFilter) this.intern(new AllFilterImpl(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#any(Filter...)}.
+   *
+   * @param filters the filters
+   * @return an interned any filter
+   * @since 1.0.0
+   */
+  public AnyFilter any(final Filter... filters) {
+    return this.any(List.of(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#any(List)}.
+   *
+   * @param filters the filters
+   * @return an interned any filter
+   * @since 1.0.0
+   */
+  public AnyFilter any(final List<? extends Filter> filters) {
+    return (AnyFilter) this.intern(new AnyFilterImpl(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#one(Filter...)}.
+   *
+   * @param filters the filters
+   * @return an interned one filter
+   * @since 1.0.0
+   */
+  public OneFilter one(final Filter... filters) {
+    return this.one(List.of(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#one(List)}.
+   *
+   * @param filters the filters
+   * @return an interned one filter
+   * @since 1.0.0
+   */
+  public OneFilter one(final List<? extends Filter> filters) {
+    return (OneFilter) this.intern(new OneFilterImpl(filters));
+  }
+
+  /**
+   * Creates an interned filter that responds like {@link Filter#not(Filter)}.
+   *
+   * @param filter the filter
+   * @return an interned not filter
+   * @since 1.0.0
+   */
+  public NotFilter not(final Filter filter) {
+    return (NotFilter) this.intern(new NotFilterImpl(filter));
+  }
+
+  /**
+   * Gets the number of canonical filters which have not been garbage collected.
+   *
+   * @return the number of canonical filters
+   * @since 1.0.0
+   */
+  public int size() {
+    this.expunge();
+    return this.nodes.size();
+  }
+
+  // walks the filter from its leaves up with an explicit stack, without descending into filters which are already
+  // equal to a canonical filter: their children are canonical, so they are found by a single lookup
+  private Filter canonical(final Filter filter) {
+    final @Nullable Filter found = this.find(filter);
+    if (found != null) {
+      return found;
+    }
+    final Deque<Frame> stack = new ArrayDeque<>();
+    stack.push(new Frame(filter));
+    while (true) {
+      final Frame top = stack.element();
+      if (top.next < top.children.size()) {
+        final Filter child = top.children.get(top.next);
+        final @Nullable Filter canonicalChild = this.find(child);
+        if (canonicalChild != null) {
+          top.add(canonicalChild);
+        } else {
+          stack.push(new Frame(child));
+        }
+        continue;
+      }
+      stack.pop();
+      final Filter canonical = this.insert(top.build());
+      if (stack.isEmpty()) {
+        return canonical;
+      }
+      stack.element().add(canonical);
+    }
+  }
+
+  // the canonical filter equal to a filter, or null if there is none
+  private @Nullable Filter find(final Filter filter) {
+    final @Nullable Node existing = this.nodes.get(new Node(filter, null));
+    return existing != null ? existing.get() : null;
+  }
+
+  private Filter insert(final Filter candidate) {
+    final Node node = new Node(candidate, this.queue);
+    while (true) {
+      final @Nullable Node existing = this.nodes.putIfAbsent(node, node);
+      if (existing == null) {
+        return candidate;
+      }
+      // the existing filter may have been collected since it was found to be equal
+      final @Nullable Filter canonical = existing.get();
+      if (canonical != null) {
+        return canonical;
+      }
+    }
+  }
+
+  private void expunge() {
+    @Nullable Reference<? extends Filter> reference = this.queue.poll();
+    while (reference != null) {
+      this.nodes.remove(reference);
+      reference = this.queue.poll();
+    }
+  }
+
+  // a filter whose children are being canonicalized
+  private static final class Frame {
+    final Filter filter;
+    final List<? extends Filter> children;
+    final Filter[] canonicalChildren;
+    boolean changed;
+    int next;
+
+    Frame(final Filter filter) {
+      this.filter = filter;
+      if (Composition.of(filter) != null) {
+        this.children = Composition.children(filter);
+      } else if (filter instanceof final NotFilter not) {
+        this.children = List.of(not.filter());
+      } else {
+        this.children = List.of();
+      }
+      this.canonicalChildren = new Filter[this.children.size()];
+    }
+
+    void add(final Filter canonicalChild) {
+      this.changed |= canonicalChild != this.children.get(this.next);
+      this.canonicalChildren[this.next++] = canonicalChild;
+    }
+
+    // the filter with its canonical children
+    Filter build() {
+      if (!this.changed) {
+        return this.filter;
+      }
+      final @Nullable Composition composition = Composition.of(this.filter);
+      return composition != null ? composition.compose(Arrays.asList(this.canonicalChildren)) : new NotFilterImpl(this.canonicalChildren[0]);
+    }
+  }
+
+  // a weak reference to a filter, equal to a reference to an equal filter while both filters are reachable
+  private static final class Node extends WeakReference<Filter> {
+    private final int hash;
+
+    Node(final Filter filter, final @Nullable ReferenceQueue<Filter> queue) {
+      super(filter, queue);
+      this.hash = hash(filter);
+    }
+
+    private static int hash(final Filter filter) {
+      final @Nullable Composition composition = Composition.of(filter);
+      if (composition != null) {
+        int hash = composition.hashCode();
+        for (final Filter child : Composition.children(filter)) {
+          hash = 31 * hash + System.identityHashCode(child);
+        }
+        return hash;
+      } else if (filter instanceof final NotFilter not) {
+        return ~System.identityHashCode(not.filter());
+      }
+      return filter.hashCode();
+    }
+
+    private static boolean equal(final Filter filter, final Filter other) {
+      final @Nullable Composition composition = Composition.of(filter);
+      if (composition != null) {
+        if (composition != Composition.of(other)) {
+          return false;
+        }
+        final List<? extends Filter> children = Composition.children(filter);
+        final List<? extends Filter> otherChildren = Composition.children(other);
+        if (children.size() != otherChildren.size()) {
+          return false;
+        }
+        for (int i = 0; i < children.size(); i++) {
+          if (children.get(i) != otherChildren.get(i)) {
+            return false;
+          }
+        }
+        return true;
+      } else if (filter instanceof final NotFilter not) {
+        return other instanceof final NotFilter otherNot && not.filter() == otherNot.filter();
+      }
+      return Composition.of(other) == null && !(other instanceof NotFilter) && filter.equals(other);
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof final Node node && node.hash == this.hash) {
+        final @Nullable Filter filter = this.get();
+        final @Nullable Filter otherFilter = node.get();
+        return filter != null && otherFilter != null && equal(filter, otherFilter);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+}
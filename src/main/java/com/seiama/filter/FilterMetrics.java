@@ -0,0 +1,184 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The metrics of a single filter in an instrumented tree.
+ *
+ * <p>Metrics are recorded without locking, and can be read while queries are in progress.</p>
+ *
+ * @see Filter#instrumented(Filter, MetricsSink)
+ * @since 1.0.0
+ */
+@NullMarked
+public final class FilterMetrics {
+  private static final FilterResponse[] RESPONSES = FilterResponse.values();
+  // only all, any and one filters stop early, so every other filter shares a histogram which is never recorded to
+  private static final Histogram NO_SHORT_CIRCUITS = new Histogram();
+  private final Filter filter;
+  private final @Nullable FilterMetrics parent;
+  private final int index;
+  private final LongAdder[] responses = new LongAdder[RESPONSES.length];
+  private final Histogram latency = new Histogram();
+  private final Histogram shortCircuits;
+
+  FilterMetrics(final Filter filter, final @Nullable FilterMetrics parent, final int index) {
+    this.filter = filter;
+    this.parent = parent;
+    this.index = index;
+    this.shortCircuits = Composition.of(filter) != null ? new Histogram() : NO_SHORT_CIRCUITS;
+    for (int i = 0; i < RESPONSES.length; i++) {
+      this.responses[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Gets the filter these metrics are of.
+   *
+   * @return the filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public Filter filter() {
+    return this.filter;
+  }
+
+  /**
+   * Gets the metrics of the parent of the filter, or {@code null} if the filter is the root of the tree.
+   *
+   * @return the metrics of the parent
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public @Nullable FilterMetrics parent() {
+    return this.parent;
+  }
+
+  /**
+   * Gets the index of the filter among the children of its parent, or {@code 0} if the filter is the root of the tree.
+   *
+   * @return the index
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int index() {
+    return this.index;
+  }
+
+  /**
+   * Gets the depth of the filter in the tree, where the root has depth {@code 0}.
+   *
+   * @return the depth
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int depth() {
+    int depth = 0;
+    for (FilterMetrics parent = this.parent; parent != null; parent = parent.parent) {
+      depth++;
+    }
+    return depth;
+  }
+
+  /**
+   * Gets the number of times the filter has responded.
+   *
+   * @return the number of responses
+   * @since 1.0.0
+   */
+  public long invocations() {
+    long invocations = 0;
+    for (final LongAdder responses : this.responses) {
+      invocations += responses.sum();
+    }
+    return invocations;
+  }
+
+  /**
+   * Gets the number of times the filter has responded with a response.
+   *
+   * @param response the response
+   * @return the number of times the filter responded with {@code response}
+   * @since 1.0.0
+   */
+  public long responses(final FilterResponse response) {
+    return this.responses[response.ordinal()].sum();
+  }
+
+  /**
+   * Gets the histogram of the time taken to respond, in nanoseconds.
+   *
+   * @return the latency histogram
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public Histogram latency() {
+    return this.latency;
+  }
+
+  /**
+   * Gets the histogram of the index of the child which stopped an all, any or one filter early.
+   *
+   * <p>Responses which required every child to respond are not recorded, and the histogram of any other filter is
+   * always empty.</p>
+   *
+   * @return the short circuit histogram
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public Histogram shortCircuits() {
+    return this.shortCircuits;
+  }
+
+  /**
+   * Discards all recorded metrics.
+   *
+   * @since 1.0.0
+   */
+  public void reset() {
+    for (final LongAdder responses : this.responses) {
+      responses.reset();
+    }
+    this.latency.reset();
+    this.shortCircuits.reset();
+  }
+
+  void record(final FilterResponse response, final long nanos) {
+    this.responses[response.ordinal()].increment();
+    this.latency.record(nanos);
+  }
+
+  @Override
+  public String toString() {
+    return "FilterMetrics[filter=" + this.filter
+      + ", allowed=" + this.responses(FilterResponse.ALLOW)
+      + ", abstained=" + this.responses(FilterResponse.ABSTAIN)
+      + ", denied=" + this.responses(FilterResponse.DENY) + "]";
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+final class FilterOptimizer {
+  private FilterOptimizer() {
+  }
+
+  static Filter optimize(final Filter filter) {
+    if (filter instanceof final AllFilter all) {
+      return optimizeAll(all);
+    } else if (filter instanceof final AnyFilter any) {
+      return optimizeAny(any);
+    } else if (filter instanceof final OneFilter one) {
+      return optimizeOne(one);
+    } else if (filter instanceof final NotFilter not) {
+      return optimizeNot(not);
+    }
+    return filter;
+  }
+
+  // all: DENY if any child denies, otherwise ALLOW if any child allows, otherwise ABSTAIN
+  private static Filter optimizeAll(final AllFilter filter) {
+    final List<Filter> optimized = new ArrayList<>(filter.filters().size());
+    boolean allow = false;
+    for (final Filter child : flatten(filter.filters(), AllFilter.class)) {
+      if (child instanceof final ConstantFilter constant) {
+        final FilterResponse response = constant.response();
+        if (response == FilterResponse.DENY) {
+          return Filter.deny();
+        } else if (response == FilterResponse.ALLOW && !allow) {
+          // a single ALLOW is enough to turn an otherwise abstaining result into ALLOW
+          allow = true;
+          optimized.add(child);
+        }
+      } else {
+        optimized.add(child);
+      }
+    }
+    if (sameChildren(filter.filters(), optimized)) {
+      return filter;
+    }
+    return switch (optimized.size()) {
+      case 0 -> Filter.abstain();
+      case 1 -> optimized.get(0);
+      default -> new AllFilterImpl(optimized);
+    };
+  }
+
+  // any: ALLOW if any child allows, otherwise DENY if any child denies, otherwise ABSTAIN
+  private static Filter optimizeAny(final AnyFilter filter) {
+    final List<Filter> optimized = new ArrayList<>(filter.filters().size());
+    boolean deny = false;
+    for (final Filter child : flatten(filter.filters(), AnyFilter.class)) {
+      if (child instanceof final ConstantFilter constant) {
+        final FilterResponse response = constant.response();
+        if (response == FilterResponse.ALLOW) {
+          return Filter.allow();
+        } else if (response == FilterResponse.DENY && !deny) {
+          // a single DENY is enough to turn an otherwise abstaining result into DENY
+          deny = true;
+          optimized.add(child);
+        }
+      } else {
+        optimized.add(child);
+      }
+    }
+    if (sameChildren(filter.filters(), optimized)) {
+      return filter;
+    }
+    return switch (optimized.size()) {
+      case 0 -> Filter.abstain();
+      case 1 -> optimized.get(0);
+      default -> new AnyFilterImpl(optimized);
+    };
+  }
+
+  // one: the result depends on the order of the children, so nested one filters are not flattened
+  private static Filter optimizeOne(final OneFilter filter) {
+    final List<? extends Filter> filters = filter.filters();
+    final List<Filter> optimized = new ArrayList<>(filters.size());
+    for (final Filter child : filters) {
+      final Filter optimizedChild = optimize(child);
+      if (isConstant(optimizedChild, FilterResponse.ABSTAIN)) {
+        continue;
+      }
+      // two ALLOW responses in a row always result in DENY, regardless of what came before
+      if (isConstant(optimizedChild, FilterResponse.ALLOW) && !optimized.isEmpty() && isConstant(optimized.get(optimized.size() - 1), FilterResponse.ALLOW)) {
+        return Filter.deny();
+      }
+      optimized.add(optimizedChild);
+    }
+    // a trailing DENY is always the response: either it is the last response, or an earlier pair of ALLOW responses already denied
+    if (!optimized.isEmpty() && isConstant(optimized.get(optimized.size() - 1), FilterResponse.DENY)) {
+      return Filter.deny();
+    }
+    if (sameChildren(filters, optimized)) {
+      return filter;
+    }
+    return switch (optimized.size()) {
+      case 0 -> Filter.abstain();
+      case 1 -> optimized.get(0);
+      default -> new OneFilterImpl(optimized);
+    };
+  }
+
+  private static Filter optimizeNot(final NotFilter filter) {
+    final Filter child = optimize(filter.filter());
+    if (child instanceof final NotFilter not) {
+      return not.filter();
+    } else if (child instanceof final ConstantFilter constant) {
+      return switch (constant.response()) {
+        case ALLOW -> Filter.deny();
+        case DENY -> Filter.allow();
+        case ABSTAIN -> Filter.abstain();
+      };
+    } else if (child == filter.filter()) {
+      return filter;
+    }
+    return new NotFilterImpl(child);
+  }
+
+  private static List<Filter> flatten(final List<? extends Filter> filters, final Class<? extends Filter> kind) {
+    final List<Filter> flattened = new ArrayList<>(filters.size());
+    for (final Filter child : filters) {
+      final Filter optimizedChild = optimize(child);
+      // an optimized child of the same kind is already flat, so a single level is enough
+      if (kind.isInstance(optimizedChild)) {
+        flattened.addAll(Composition.children(optimizedChild));
+      } else {
+        flattened.add(optimizedChild);
+      }
+    }
+    return flattened;
+  }
+
+  private static boolean isConstant(final Filter filter, final FilterResponse response) {
+    return filter instanceof final ConstantFilter constant && constant.response() == response;
+  }
+
+  private static boolean sameChildren(final List<? extends Filter> original, final List<Filter> optimized) {
+    final int size = original.size();
+    if (size != optimized.size() || size < 2) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (original.get(i) != optimized.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A filter tree lowered into a flat program, which responds like the tree.
+ *
+ * <p>All, any, one, not and constant filters are encoded as instructions in a single {@code int} array, in the order
+ * the tree is queried, and all other filters are kept in a table of leaves. The program is run by a single loop with
+ * an explicit stack, so it reads the tree sequentially from memory and can query trees of any depth without running
+ * out of stack.</p>
+ *
+ * <p>Each instruction starts with its opcode:</p>
+ * <ul>
+ *   <li>{@code ALL}, {@code ANY} and {@code ONE} are followed by the number of children and the index of the next
+ *   instruction after the children, which is where a short circuit jumps to, and then by the children;</li>
+ *   <li>{@code NOT} is followed by its child;</li>
+ *   <li>{@code CONST} is followed by the ordinal of its {@link FilterResponse};</li>
+ *   <li>{@code LEAF} is followed by the index of its filter in the leaves;</li>
+ *   <li>{@code CALL} is followed by the index of an earlier instruction, and queries the filter lowered there before
+ *   continuing after the call.</li>
+ * </ul>
+ *
+ * <p>An all, any, one or not filter which appears more than once in the tree is lowered where it first appears, and
+ * called everywhere else, so the program grows with the number of distinct filters rather than the size of the tree
+ * they unfold into.</p>
+ *
+ * @see Filter#program(Filter)
+ * @since 1.0.0
+ */
+@NullMarked
+public final class FilterProgram implements Filter {
+  static final int ALL = 0;
+  static final int ANY = 1;
+  static final int ONE = 2;
+  static final int NOT = 3;
+  static final int CONST = 4;
+  static final int LEAF = 5;
+  static final int CALL = 6;
+  private static final Composition[] COMPOSITIONS = {Composition.ALL, Composition.ANY, Composition.ONE};
+  private static final FilterResponse[] RESPONSES = FilterResponse.values();
+  // a view of an int array, or of the instructions of a MappedFilter in a buffer
+  private final IntBuffer code;
+  private final Filter[] leaves;
+  private final int depth;
+  private final ThreadLocal<Stack> stack;
+
+  FilterProgram(final IntBuffer code, final Filter[] leaves, final int depth) {
+    this.code = code;
+    this.leaves = leaves;
+    this.depth = depth;
+    this.stack = ThreadLocal.withInitial(() -> new Stack(depth));
+  }
+
+  static FilterProgram lower(final Filter filter) {
+    final Map<Filter, Integer> references = references(filter);
+    final Map<Filter, Integer> leafIndexes = new IdentityHashMap<>();
+    final List<Filter> leaves = new ArrayList<>();
+    // the first instruction of every shared filter which has been lowered, and the most frames querying it nests
+    final Map<Filter, Integer> offsets = new IdentityHashMap<>();
+    final Map<Filter, Integer> heights = new IdentityHashMap<>();
+    int[] code = new int[16];
+    int size = 0;
+    // the most frames nested below each all, any, one and not filter being lowered
+    int[] below = new int[16];
+    int frames = 0;
+    int height = 0;
+    // filters still to be lowered, and the ends of the filters whose children are lowered before them
+    final Deque<Object> work = new ArrayDeque<>();
+    work.push(filter);
+    while (!work.isEmpty()) {
+      final Object item = work.pop();
+      if (item instanceof final End end) {
+        if (end.jump() != -1) {
+          code[end.jump()] = size;
+        }
+        height = 1 + below[--frames];
+        if (references.getOrDefault(end.filter(), 0) > 1) {
+          heights.put(end.filter(), height);
+        }
+      } else {
+        final Filter current = (Filter) item;
+        if (code.length - size < 3) {
+          code = Arrays.copyOf(code, code.length * 2);
+        }
+        final @Nullable Integer offset = offsets.get(current);
+        final @Nullable Composition composition = Composition.of(current);
+        if (offset != null) {
+          // a shared filter which has already been lowered
+          code[size++] = CALL;
+          code[size++] = offset;
+          height = 1 + heights.get(current);
+        } else if (composition != null || current instanceof NotFilter) {
+          if (references.getOrDefault(current, 0) > 1) {
+            offsets.put(current, size);
+          }
+          if (frames == below.length) {
+            below = Arrays.copyOf(below, below.length * 2);
+          }
+          below[frames++] = 0;
+          if (composition != null) {
+            final List<? extends Filter> children = Composition.children(current);
+            code[size++] = composition.ordinal();
+            code[size++] = children.size();
+            work.push(new End(current, size++));
+            for (int i = children.size() - 1; i >= 0; i--) {
+              work.push(children.get(i));
+            }
+          } else {
+            code[size++] = NOT;
+            work.push(new End(current, -1));
+            work.push(((NotFilter) current).filter());
+          }
+          continue;
+        } else if (current instanceof final ConstantFilter constant) {
+          code[size++] = CONST;
+          code[size++] = constant.response().ordinal();
+          height = 0;
+        } else {
+          code[size++] = LEAF;
+          code[size++] = leafIndexes.computeIfAbsent(current, leaf -> {
+            leaves.add(leaf);
+            return leaves.size() - 1;
+          });
+          height = 0;
+        }
+      }
+      if (frames > 0) {
+        below[frames - 1] = Math.max(below[frames - 1], height);
+      }
+    }
+    return new FilterProgram(IntBuffer.wrap(Arrays.copyOf(code, size)), leaves.toArray(Filter[]::new), height);
+  }
+
+  // the number of times each all, any, one and not filter is a child of another, counting every filter once
+  private static Map<Filter, Integer> references(final Filter filter) {
+    final Map<Filter, Integer> references = new IdentityHashMap<>();
+    final Deque<Filter> pending = new ArrayDeque<>();
+    pending.push(filter);
+    while (!pending.isEmpty()) {
+      final Filter current = pending.pop();
+      final List<? extends Filter> children;
+      if (Composition.of(current) != null) {
+        children = Composition.children(current);
+      } else if (current instanceof final NotFilter not) {
+        children = List.of(not.filter());
+      } else {
+        continue;
+      }
+      for (final Filter child : children) {
+        if ((Composition.of(child) != null || child instanceof NotFilter) && references.merge(child, 1, Integer::sum) == 1) {
+          pending.push(child);
+        }
+      }
+    }
+    return references;
+  }
+
+  /**
+   * Gets a copy of the instructions of this program.
+   *
+   * @return the instructions
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int[] code() {
+    final int[] code = new int[this.code.limit()];
+    this.code.get(0, code);
+    return code;
+  }
+
+  /**
+   * Gets the leaves of this program, which are the filters other than all, any, one, not and constant filters.
+   *
+   * @return the leaves
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<Filter> leaves() {
+    return List.of(this.leaves);
+  }
+
+  /**
+   * Gets the largest number of nested all, any, one and not filters and calls in this program.
+   *
+   * @return the depth
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int depth() {
+    return this.depth;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    Stack stack = this.stack.get();
+    if (stack.busy) {
+      // a leaf of this program is querying the program again on the same thread
+      stack = new Stack(this.depth);
+    }
+    stack.busy = true;
+    try {
+      return run(this.code, this.leaves, query, stack);
+    } finally {
+      stack.busy = false;
+    }
+  }
+
+  private static FilterResponse run(final IntBuffer code, final Filter[] leaves, final FilterQuery query, final Stack stack) {
+    final int[] ops = stack.ops;
+    final int[] remaining = stack.remaining;
+    final int[] ends = stack.ends;
+    final FilterResponse[] states = stack.states;
+    int top = -1;
+    int pc = 0;
+    while (true) {
+      FilterResponse response;
+      final int op = code.get(pc);
+      if (op == LEAF) {
+        response = leaves[code.get(pc + 1)].query(query);
+        pc += 2;
+      } else if (op == CONST) {
+        response = RESPONSES[code.get(pc + 1)];
+        pc += 2;
+      } else if (op == NOT) {
+        ops[++top] = NOT;
+        pc += 1;
+        continue;
+      } else if (op == CALL) {
+        ops[++top] = CALL;
+        ends[top] = pc + 2;
+        pc = code.get(pc + 1);
+        continue;
+      } else if (code.get(pc + 1) == 0) {
+        response = FilterResponse.ABSTAIN;
+        pc += 3;
+      } else {
+        ops[++top] = op;
+        remaining[top] = code.get(pc + 1);
+        ends[top] = code.get(pc + 2);
+        states[top] = FilterResponse.ABSTAIN;
+        pc += 3;
+        continue;
+      }
+      // hand the response to the enclosing filters, until one of them needs its next child
+      while (true) {
+        if (top < 0) {
+          return response;
+        }
+        final int parent = ops[top];
+        if (parent == NOT) {
+          response = switch (response) {
+            case ALLOW -> FilterResponse.DENY;
+            case DENY -> FilterResponse.ALLOW;
+            case ABSTAIN -> FilterResponse.ABSTAIN;
+          };
+          top--;
+          continue;
+        } else if (parent == CALL) {
+          pc = ends[top];
+          top--;
+          continue;
+        }
+        final Composition composition = COMPOSITIONS[parent];
+        final @Nullable FilterResponse next = composition.next(states[top], response);
+        if (next == null) {
+          response = composition.shortCircuit();
+          pc = ends[top];
+          top--;
+        } else if (--remaining[top] == 0) {
+          response = next;
+          top--;
+        } else {
+          states[top] = next;
+          break;
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "FilterProgram[instructions=" + this.code.limit() + ", leaves=" + this.leaves.length + ", depth=" + this.depth + "]";
+  }
+
+  // the end of an all, any, one or not filter being lowered, and the index of its jump target, or -1 if it has none
+  private record End(Filter filter, int jump) {
+  }
+
+  // the composite and not filters and the calls being queried, and the state of each composite or where each call
+  // returns to
+  private static final class Stack {
+    final int[] ops;
+    final int[] remaining;
+    final int[] ends;
+    final FilterResponse[] states;
+    boolean busy;
+
+    Stack(final int depth) {
+      this.ops = new int[depth];
+      this.remaining = new int[depth];
+      this.ends = new int[depth];
+      this.states = new FilterResponse[depth];
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A fixed-size vector of responses, packed into two bits per response.
+ *
+ * <p>Responses are stored as two bitmaps: one marking the responses that are not {@link FilterResponse#ABSTAIN}, and one
+ * marking the responses that are {@link FilterResponse#ALLOW}. Combining vectors works on 64 responses at a time, and
+ * follows the same rules as the filters of the same name.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class FilterResponseVector {
+  private static final int ADDRESS_BITS_PER_WORD = 6;
+  private final int size;
+  private final long[] decided;
+  private final long[] allowed;
+
+  private FilterResponseVector(final int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size < 0: " + size);
+    }
+    this.size = size;
+    final int words = (size + Long.SIZE - 1) >>> ADDRESS_BITS_PER_WORD;
+    this.decided = new long[words];
+    this.allowed = new long[words];
+  }
+
+  /**
+   * Creates a vector of {@code size} responses, all of which are {@link FilterResponse#ABSTAIN}.
+   *
+   * @param size the size
+   * @return a vector
+   * @throws IllegalArgumentException if {@code size} is negative
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static FilterResponseVector create(final int size) {
+    return new FilterResponseVector(size);
+  }
+
+  /**
+   * Creates a vector of responses.
+   *
+   * @param responses the responses
+   * @return a vector
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static FilterResponseVector of(final FilterResponse... responses) {
+    final FilterResponseVector vector = new FilterResponseVector(responses.length);
+    for (int i = 0; i < responses.length; i++) {
+      vector.set(i, responses[i]);
+    }
+    return vector;
+  }
+
+  /**
+   * Creates a vector of responses, combining {@code vectors} the same way a {@link OneFilter} combines the responses of
+   * its children.
+   *
+   * @param vectors the vectors, in the order of the children
+   * @return a vector
+   * @throws IllegalArgumentException if there are no vectors, or if the vectors are not all of the same size
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static FilterResponseVector exactlyOne(final List<FilterResponseVector> vectors) {
+    if (vectors.isEmpty()) {
+      throw new IllegalArgumentException("Cannot combine zero vectors");
+    }
+    final FilterResponseVector result = new FilterResponseVector(vectors.get(0).size);
+    for (int i = 0, words = result.decided.length; i < words; i++) {
+      long decided = 0;
+      long allowed = 0;
+      // responses that have already seen two ALLOW responses in a row, and are therefore DENY
+      long denied = 0;
+      for (final FilterResponseVector vector : vectors) {
+        result.checkSize(vector);
+        final long live = ~denied;
+        denied |= vector.allowed[i] & allowed & live;
+        final long updated = vector.decided[i] & ~denied;
+        decided |= updated;
+        allowed = allowed & ~updated | vector.allowed[i] & updated;
+      }
+      result.decided[i] = decided | denied;
+      result.allowed[i] = allowed & ~denied;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the size of this vector.
+   *
+   * @return the size
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Gets the response at {@code index}.
+   *
+   * @param index the index
+   * @return the response
+   * @throws IndexOutOfBoundsException if {@code index} is out of bounds
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public FilterResponse get(final int index) {
+    final int word = this.word(index);
+    final long mask = 1L << index;
+    if ((this.decided[word] & mask) == 0) {
+      return FilterResponse.ABSTAIN;
+    }
+    return (this.allowed[word] & mask) != 0 ? FilterResponse.ALLOW : FilterResponse.DENY;
+  }
+
+  /**
+   * Sets the response at {@code index}.
+   *
+   * @param index the index
+   * @param response the response
+   * @throws IndexOutOfBoundsException if {@code index} is out of bounds
+   * @since 1.0.0
+   */
+  public void set(final int index, final FilterResponse response) {
+    final int word = this.word(index);
+    final long mask = 1L << index;
+    switch (response) {
+      case ALLOW -> {
+        this.decided[word] |= mask;
+        this.allowed[word] |= mask;
+      }
+      case ABSTAIN -> {
+        this.decided[word] &= ~mask;
+        this.allowed[word] &= ~mask;
+      }
+      case DENY -> {
+        this.decided[word] |= mask;
+        this.allowed[word] &= ~mask;
+      }
+    }
+  }
+
+  /**
+   * Combines {@code other} into this vector the same way an {@link AllFilter} combines the responses of its children.
+   *
+   * @param other the other vector
+   * @throws IllegalArgumentException if {@code other} is not of the same size
+   * @since 1.0.0
+   */
+  public void and(final FilterResponseVector other) {
+    this.checkSize(other);
+    for (int i = 0, words = this.decided.length; i < words; i++) {
+      final long denied = this.decided[i] & ~this.allowed[i] | other.decided[i] & ~other.allowed[i];
+      this.decided[i] |= other.decided[i];
+      this.allowed[i] = (this.allowed[i] | other.allowed[i]) & ~denied;
+    }
+  }
+
+  /**
+   * Combines {@code other} into this vector the same way an {@link AnyFilter} combines the responses of its children.
+   *
+   * @param other the other vector
+   * @throws IllegalArgumentException if {@code other} is not of the same size
+   * @since 1.0.0
+   */
+  public void or(final FilterResponseVector other) {
+    this.checkSize(other);
+    for (int i = 0, words = this.decided.length; i < words; i++) {
+      this.decided[i] |= other.decided[i];
+      this.allowed[i] |= other.allowed[i];
+    }
+  }
+
+  /**
+   * Inverts this vector the same way a {@link NotFilter} inverts the response of its child.
+   *
+   * @since 1.0.0
+   */
+  public void not() {
+    for (int i = 0, words = this.decided.length; i < words; i++) {
+      this.allowed[i] = this.decided[i] & ~this.allowed[i];
+    }
+  }
+
+  /**
+   * Counts the responses equal to {@code response}.
+   *
+   * @param response the response
+   * @return the count
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int count(final FilterResponse response) {
+    int decided = 0;
+    int allowed = 0;
+    for (int i = 0, words = this.decided.length; i < words; i++) {
+      decided += Long.bitCount(this.decided[i]);
+      allowed += Long.bitCount(this.allowed[i]);
+    }
+    return switch (response) {
+      case ALLOW -> allowed;
+      case ABSTAIN -> this.size - decided;
+      case DENY -> decided - allowed;
+    };
+  }
+
+  /**
+   * Gets the index of the first {@link FilterResponse#ALLOW} response at or after {@code fromIndex}.
+   *
+   * @param fromIndex the index to start from
+   * @return the index, or {@code -1} if there is no such response
+   * @throws IndexOutOfBoundsException if {@code fromIndex} is negative
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int nextAllowed(final int fromIndex) {
+    if (fromIndex < 0) {
+      throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+    }
+    int word = fromIndex >>> ADDRESS_BITS_PER_WORD;
+    if (word >= this.allowed.length) {
+      return -1;
+    }
+    long bits = this.allowed[word] & -1L << fromIndex;
+    while (bits == 0) {
+      if (++word == this.allowed.length) {
+        return -1;
+      }
+      bits = this.allowed[word];
+    }
+    return (word << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(bits);
+  }
+
+  /**
+   * Performs {@code action} with the index of every {@link FilterResponse#ALLOW} response, in ascending order.
+   *
+   * @param action the action
+   * @since 1.0.0
+   */
+  public void forEachAllowed(final IntConsumer action) {
+    for (int i = 0, words = this.allowed.length; i < words; i++) {
+      long bits = this.allowed[i];
+      while (bits != 0) {
+        action.accept((i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(bits));
+        bits &= bits - 1;
+      }
+    }
+  }
+
+  /**
+   * Copies the responses into an array.
+   *
+   * @return the responses
+   * @since 1.0.0
+   */
+  @Contract(value = "-> new", pure = true)
+  public FilterResponse[] toArray() {
+    final FilterResponse[] responses = new FilterResponse[this.size];
+    for (int i = 0; i < this.size; i++) {
+      responses[i] = this.get(i);
+    }
+    return responses;
+  }
+
+  private int word(final int index) {
+    return Objects.checkIndex(index, this.size) >>> ADDRESS_BITS_PER_WORD;
+  }
+
+  private void checkSize(final FilterResponseVector other) {
+    if (other.size != this.size) {
+      throw new IllegalArgumentException("Cannot combine vectors of size " + this.size + " and " + other.size);
+    }
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof final FilterResponseVector that)) {
+      return false;
+    }
+    return this.size == that.size && Arrays.equals(this.decided, that.decided) && Arrays.equals(this.allowed, that.allowed);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Integer.hashCode(this.size);
+    result = 31 * result + Arrays.hashCode(this.decided);
+    result = 31 * result + Arrays.hashCode(this.allowed);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    final StringJoiner joiner = new StringJoiner(", ", "FilterResponseVector[", "]");
+    for (int i = 0; i < this.size; i++) {
+      joiner.add(this.get(i).name());
+    }
+    return joiner.toString();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import java.util.Locale;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A trace of how a filter responded to a query.
+ *
+ * @param filter the filter
+ * @param response the response
+ * @param children the traces of the children which were queried, in order
+ * @param decidingChild the index of the child which stopped the filter early, or {@code -1} if the filter did not stop
+ *     early
+ * @param skipped the children which were not queried because the filter stopped early
+ * @see Filter#explain(FilterQuery)
+ * @since 1.0.0
+ */
+@NullMarked
+public record FilterTrace(Filter filter, FilterResponse response, List<FilterTrace> children, int decidingChild, List<? extends Filter> skipped) {
+  /**
+   * Creates a trace.
+   *
+   * @param filter the filter
+   * @param response the response
+   * @param children the traces of the children which were queried, in order
+   * @param decidingChild the index of the child which stopped the filter early, or {@code -1} if the filter did not
+   *     stop early
+   * @param skipped the children which were not queried because the filter stopped early
+   * @since 1.0.0
+   */
+  public FilterTrace {
+    children = List.copyOf(children);
+    skipped = List.copyOf(skipped);
+  }
+
+  /**
+   * Gets the trace of the child which stopped the filter early, or {@code null} if the filter did not stop early.
+   *
+   * @return the trace of the deciding child
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public @Nullable FilterTrace deciding() {
+    return this.decidingChild == -1 ? null : this.children.get(this.decidingChild);
+  }
+
+  /**
+   * Renders this trace as an indented tree, one filter per line.
+   *
+   * <p>All, any, one and not filters are rendered as their kind, as their children follow on lines of their own. Other
+   * filters are rendered as they are.</p>
+   *
+   * @return the rendered trace
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public String render() {
+    final StringBuilder builder = new StringBuilder();
+    this.render(builder, 0);
+    return builder.toString();
+  }
+
+  private void render(final StringBuilder builder, final int depth) {
+    builder.append("  ".repeat(depth)).append(this.response).append(' ').append(describe(this.filter));
+    if (this.decidingChild != -1) {
+      builder.append(" (decided by child ").append(this.decidingChild).append(", skipped ").append(this.skipped.size()).append(')');
+    }
+    builder.append('\n');
+    for (final FilterTrace child : this.children) {
+      child.render(builder, depth + 1);
+    }
+  }
+
+  private static String describe(final Filter filter) {
+    final @Nullable Composition composition = Composition.of(filter);
+    if (composition != null) {
+      return composition.name().toLowerCase(Locale.ROOT);
+    } else if (filter instanceof NotFilter) {
+      return "not";
+    }
+    return filter.toString();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A histogram of non-negative values with a fixed set of power of two buckets.
+ *
+ * <p>Bucket {@code 0} counts the value {@code 0}, and bucket {@code b} counts values from {@code 2^(b-1)} up to and
+ * including {@link #upperBound(int) 2^b - 1}. Values are recorded without locking, and the histogram can be read while
+ * values are being recorded.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class Histogram {
+  /**
+   * The number of buckets.
+   *
+   * @since 1.0.0
+   */
+  public static final int BUCKETS = Long.SIZE;
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      this.buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Gets the largest value counted by a bucket.
+   *
+   * @param bucket the bucket
+   * @return the largest value counted by the bucket
+   * @throws IndexOutOfBoundsException if {@code bucket} is not a bucket
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public static long upperBound(final int bucket) {
+    Objects.checkIndex(bucket, BUCKETS);
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  static int bucket(final long value) {
+    return value <= 0 ? 0 : Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(value));
+  }
+
+  void record(final long value) {
+    this.buckets[bucket(value)].increment();
+  }
+
+  /**
+   * Gets the number of recorded values.
+   *
+   * @return the number of recorded values
+   * @since 1.0.0
+   */
+  public long count() {
+    long count = 0;
+    for (final LongAdder bucket : this.buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the number of recorded values in each bucket.
+   *
+   * @return the number of values in each bucket, indexed by bucket
+   * @since 1.0.0
+   */
+  public long[] buckets() {
+    final long[] buckets = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = this.buckets[i].sum();
+    }
+    return buckets;
+  }
+
+  /**
+   * Gets the upper bound of the bucket containing the value at a percentile.
+   *
+   * @param percentile the percentile, from {@code 0} to {@code 1}
+   * @return the upper bound of the bucket containing the value at the percentile, or {@code 0} if no values have been
+   *     recorded
+   * @throws IllegalArgumentException if {@code percentile} is not between {@code 0} and {@code 1}
+   * @since 1.0.0
+   */
+  public long percentile(final double percentile) {
+    if (!(percentile >= 0 && percentile <= 1)) {
+      throw new IllegalArgumentException("percentile must be between 0 and 1, was " + percentile);
+    }
+    final long[] buckets = this.buckets();
+    long count = 0;
+    for (final long bucket : buckets) {
+      count += bucket;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Discards all recorded values.
+   *
+   * <p>Values recorded while resetting may or may not be discarded.</p>
+   *
+   * @since 1.0.0
+   */
+  public void reset() {
+    for (final LongAdder bucket : this.buckets) {
+      bucket.reset();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Histogram[count=" + this.count() + "]";
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.Unmodifiable;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * An {@link AnyFilter} of rules which each apply to queries with a single key, looked up by the key of the query
+ * rather than queried one by one.
+ *
+ * <p>The rule for a key responds to queries of {@link #queryType()} with that key, and the other rules deny them, like
+ * equality predicates would. All rules abstain from queries of other types. The response is that of an
+ * {@link AnyFilter} of the rules and the other {@link #filters()}.</p>
+ *
+ * @see Filter#indexedAny(Class, java.util.function.Function, Map, List)
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface IndexedAnyFilter extends Filter permits IndexedAnyFilterImpl {
+  /**
+   * Gets the type of queries the rules respond to.
+   *
+   * @return the query type
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Class<? extends FilterQuery> queryType();
+
+  /**
+   * Gets the rules, by key.
+   *
+   * <p>The rules should not be queried manually.</p>
+   *
+   * @return the rules
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  @Unmodifiable
+  Map<?, ? extends Filter> rules();
+
+  /**
+   * Gets the other child filters, which are queried for every query.
+   *
+   * <p>The child filters should not be queried manually.</p>
+   *
+   * @return the other child filters
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  @Unmodifiable
+  List<? extends Filter> filters();
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that records metrics about another filter and its children.
+ *
+ * @see Filter#instrumented(Filter, MetricsSink)
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface InstrumentedFilter extends Filter permits InstrumentedFilterImpl {
+  /**
+   * Gets the filter which is instrumented.
+   *
+   * @return the filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Filter filter();
+
+  /**
+   * Gets the metrics of the instrumented filter.
+   *
+   * @return the metrics
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  FilterMetrics metrics();
+
+  /**
+   * Gets the sink the metrics are collected by.
+   *
+   * @return the sink
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  MetricsSink sink();
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+final class InstrumentedFilterImpl implements InstrumentedFilter {
+  private static final FilterResponse[] RESPONSES = FilterResponse.values();
+  private final Filter filter;
+  private final MetricsSink sink;
+  private final FilterMetrics metrics;
+  private final @Nullable Composition composition;
+  private final InstrumentedFilterImpl[] children;
+
+  InstrumentedFilterImpl(final Filter filter, final MetricsSink sink, final @Nullable FilterMetrics parent, final int index) {
+    this.filter = filter;
+    this.sink = sink;
+    this.metrics = new FilterMetrics(filter, parent, index);
+    this.composition = Composition.of(filter);
+    final List<? extends Filter> children;
+    if (this.composition != null) {
+      children = Composition.children(filter);
+    } else if (filter instanceof final NotFilter not) {
+      children = List.of(not.filter());
+    } else {
+      children = List.of();
+    }
+    this.children = new InstrumentedFilterImpl[children.size()];
+    for (int i = 0; i < this.children.length; i++) {
+      this.children[i] = new InstrumentedFilterImpl(children.get(i), sink, this.metrics, i);
+    }
+    if (parent == null) {
+      sink.register(this, this.tree());
+      FilterEvents.INSTANCE.register(this.metrics);
+    }
+  }
+
+  // the metrics of this filter and its descendants, parents before their children
+  private List<FilterMetrics> tree() {
+    final List<FilterMetrics> tree = new ArrayList<>();
+    final Deque<InstrumentedFilterImpl> pending = new ArrayDeque<>();
+    pending.push(this);
+    while (!pending.isEmpty()) {
+      final InstrumentedFilterImpl next = pending.pop();
+      tree.add(next.metrics);
+      for (int i = next.children.length - 1; i >= 0; i--) {
+        pending.push(next.children[i]);
+      }
+    }
+    return tree;
+  }
+
+  // the response, and the index of the child which stopped an all, any or one filter early, packed together
+  static FilterResponse response(final int outcome) {
+    return RESPONSES[outcome % RESPONSES.length];
+  }
+
+  static int decidingChild(final int outcome) {
+    return outcome / RESPONSES.length - 1;
+  }
+
+  private static int outcome(final FilterResponse response, final int decidingChild) {
+    return (decidingChild + 1) * RESPONSES.length + response.ordinal();
+  }
+
+  @Override
+  public Filter filter() {
+    return this.filter;
+  }
+
+  @Override
+  public FilterMetrics metrics() {
+    return this.metrics;
+  }
+
+  @Override
+  public MetricsSink sink() {
+    return this.sink;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    if (!this.sink.enabled()) {
+      return this.filter.query(query);
+    }
+    final long start = System.nanoTime();
+    final FilterResponse response = response(FilterEvents.INSTANCE.evaluate(this, query));
+    this.metrics.record(response, System.nanoTime() - start);
+    return response;
+  }
+
+  int evaluate(final FilterQuery query) {
+    final @Nullable Composition composition = this.composition;
+    if (composition != null) {
+      FilterResponse state = FilterResponse.ABSTAIN;
+      for (int i = 0; i < this.children.length; i++) {
+        final @Nullable FilterResponse next = composition.next(state, this.children[i].query(query));
+        if (next == null) {
+          this.metrics.shortCircuits().record(i);
+          return outcome(composition.shortCircuit(), i);
+        }
+        state = next;
+      }
+      return outcome(state, -1);
+    } else if (this.children.length == 1) {
+      return outcome(switch (this.children[0].query(query)) {
+        case ALLOW -> FilterResponse.DENY;
+        case DENY -> FilterResponse.ALLOW;
+        case ABSTAIN -> FilterResponse.ABSTAIN;
+      }, -1);
+    }
+    return outcome(this.filter.query(query), -1);
+  }
+
+  @Override
+  public String toString() {
+    return "InstrumentedFilter[filter=" + this.filter + "]";
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+final class JfrFilterEvents extends FilterEvents {
+  private static final FilterResponse[] RESPONSES = FilterResponse.values();
+  private final Map<FilterMetrics, long[]> roots = new WeakHashMap<>(); // guarded by itself
+
+  JfrFilterEvents() {
+    FlightRecorder.addPeriodicEvent(ThroughputEvent.class, this::emitThroughput);
+  }
+
+  @Override
+  int evaluate(final InstrumentedFilterImpl filter, final FilterQuery query) {
+    final SlowEvaluationEvent event = new SlowEvaluationEvent();
+    if (!event.isEnabled()) {
+      return filter.evaluate(query);
+    }
+    event.begin();
+    final int outcome = filter.evaluate(query);
+    event.end();
+    if (event.shouldCommit()) {
+      event.filterType = type(filter.filter());
+      event.depth = filter.metrics().depth();
+      event.index = filter.metrics().index();
+      event.decidingChild = InstrumentedFilterImpl.decidingChild(outcome);
+      event.response = InstrumentedFilterImpl.response(outcome).name();
+      event.commit();
+    }
+    return outcome;
+  }
+
+  @Override
+  void register(final FilterMetrics metrics) {
+    synchronized (this.roots) {
+      this.roots.put(metrics, new long[RESPONSES.length]);
+    }
+  }
+
+  private void emitThroughput() {
+    synchronized (this.roots) {
+      for (final Map.Entry<FilterMetrics, long[]> entry : this.roots.entrySet()) {
+        final FilterMetrics metrics = entry.getKey();
+        final long[] previous = entry.getValue();
+        final long[] delta = new long[RESPONSES.length];
+        for (int i = 0; i < RESPONSES.length; i++) {
+          final long responses = metrics.responses(RESPONSES[i]);
+          delta[i] = responses - previous[i];
+          previous[i] = responses;
+        }
+        final ThroughputEvent event = new ThroughputEvent();
+        event.filterType = type(metrics.filter());
+        event.allowed = delta[FilterResponse.ALLOW.ordinal()];
+        event.abstained = delta[FilterResponse.ABSTAIN.ordinal()];
+        event.denied = delta[FilterResponse.DENY.ordinal()];
+        event.invocations = event.allowed + event.abstained + event.denied;
+        event.commit();
+      }
+    }
+  }
+
+  private static String type(final Filter filter) {
+    final @Nullable Composition composition = Composition.of(filter);
+    if (composition != null) {
+      return composition.name().toLowerCase(Locale.ROOT);
+    } else if (filter instanceof NotFilter) {
+      return "not";
+    } else if (filter instanceof ConstantFilter) {
+      return "constant";
+    }
+    return filter.getClass().getName();
+  }
+
+  @Category({"Seiama", "Filter"})
+  @Description("An instrumented filter which took longer than the threshold to respond")
+  @Enabled(false)
+  @Label("Slow Filter Evaluation")
+  @Name("com.seiama.filter.SlowEvaluation")
+  @Threshold("10 ms")
+  static final class SlowEvaluationEvent extends Event {
+    @Label("Filter Type")
+    String filterType = "";
+    @Description("The depth of the filter in its tree, where the root has depth 0")
+    @Label("Depth")
+    int depth;
+    @Description("The index of the filter among the children of its parent")
+    @Label("Index")
+    int index;
+    @Description("The index of the child which stopped an all, any or one filter early, or -1")
+    @Label("Deciding Child")
+    int decidingChild;
+    @Label("Response")
+    String response = "";
+  }
+
+  @Category({"Seiama", "Filter"})
+  @Description("The responses of an instrumented filter tree since the previous event")
+  @Enabled(false)
+  @Label("Filter Throughput")
+  @Name("com.seiama.filter.Throughput")
+  @Period("1 s")
+  @StackTrace(false)
+  static final class ThroughputEvent extends Event {
+    @Label("Filter Type")
+    String filterType = "";
+    @Label("Invocations")
+    long invocations;
+    @Label("Allowed")
+    long allowed;
+    @Label("Abstained")
+    long abstained;
+    @Label("Denied")
+    long denied;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Writes and reads leaf filters of a single type for a {@link FilterCodec}.
+ *
+ * @param <F> the leaf type
+ * @since 1.0.0
+ */
+@NullMarked
+public interface LeafCodec<F extends Filter> {
+  /**
+   * Writes a leaf.
+   *
+   * @param filter the leaf
+   * @param output the output
+   * @throws IOException if the leaf could not be written
+   * @since 1.0.0
+   */
+  void write(final F filter, final DataOutput output) throws IOException;
+
+  /**
+   * Reads a leaf written by {@link #write(Filter, DataOutput)}.
+   *
+   * @param input the input
+   * @return the leaf
+   * @throws IOException if the leaf could not be read
+   * @since 1.0.0
+   */
+  F read(final DataInput input) throws IOException;
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A filter that is queried directly from its encoded {@link FilterProgram program} in a buffer, such as a file mapped
+ * into memory, without creating its all, any, one, not and constant filters.
+ *
+ * <p>Leaves are encoded by name, and resolved through a registry when the filter is created. Only the leaves and a
+ * stack per querying thread are kept on the heap, so any number of processes can map the same file and share its
+ * pages.</p>
+ *
+ * <p>The encoding is big-endian, and consists of a magic number, a version, the depth of the program, the number of
+ * leaves and their names, each as a length followed by UTF-8 bytes, and the number of instructions of the program
+ * followed by the instructions.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class MappedFilter implements Filter {
+  private static final int MAGIC = 0x46_50_52_47; // "FPRG"
+  private static final int VERSION = 1;
+  private static final int RESPONSES = FilterResponse.values().length;
+  // the program reads its instructions from the buffer
+  private final FilterProgram program;
+
+  private MappedFilter(final FilterProgram program) {
+    this.program = program;
+  }
+
+  /**
+   * Encodes a filter.
+   *
+   * @param filter the filter
+   * @param names the function naming each leaf of the filter, by which it is resolved when the filter is read
+   * @return a buffer with the encoded filter between its position and limit
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _ -> new", pure = true)
+  public static ByteBuffer encode(final Filter filter, final Function<? super Filter, String> names) {
+    final FilterProgram program = FilterProgram.lower(filter);
+    final List<Filter> leaves = program.leaves();
+    final byte[][] encodedNames = new byte[leaves.size()][];
+    int size = 5 * Integer.BYTES;
+    for (int i = 0; i < encodedNames.length; i++) {
+      encodedNames[i] = names.apply(leaves.get(i)).getBytes(StandardCharsets.UTF_8);
+      size += Integer.BYTES + encodedNames[i].length;
+    }
+    final int[] code = program.code();
+    size += code.length * Integer.BYTES;
+    final ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(program.depth()).putInt(encodedNames.length);
+    for (final byte[] name : encodedNames) {
+      buffer.putInt(name.length).put(name);
+    }
+    buffer.putInt(code.length);
+    buffer.asIntBuffer().put(code);
+    return buffer.clear();
+  }
+
+  /**
+   * Creates a filter that is queried directly from an encoded filter.
+   *
+   * <p>The buffer must not be modified while the filter is in use.</p>
+   *
+   * @param buffer the buffer with the encoded filter from its position
+   * @param registry the function resolving the leaves by their names, returning {@code null} for unknown names
+   * @return a mapped filter
+   * @throws IOException if the buffer does not contain a valid encoded filter, or a leaf could not be resolved
+   * @since 1.0.0
+   */
+  public static MappedFilter of(final ByteBuffer buffer, final Function<? super String, ? extends @Nullable Filter> registry) throws IOException {
+    final ByteBuffer input = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    try {
+      if (input.getInt() != MAGIC) {
+        throw new IOException("Not an encoded filter");
+      }
+      final int version = input.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + ", expected " + VERSION);
+      }
+      final int depth = input.getInt();
+      final int leafCount = input.getInt();
+      if (depth < 0 || leafCount < 0 || leafCount > input.remaining() / Integer.BYTES) {
+        throw new IOException("Malformed encoded filter");
+      }
+      final Filter[] leaves = new Filter[leafCount];
+      for (int i = 0; i < leafCount; i++) {
+        final int length = input.getInt();
+        if (length < 0 || length > input.remaining()) {
+          throw new IOException("Malformed leaf name");
+        }
+        final byte[] name = new byte[length];
+        input.get(name);
+        final String decoded = new String(name, StandardCharsets.UTF_8);
+        final @Nullable Filter leaf = registry.apply(decoded);
+        if (leaf == null) {
+          throw new IOException("Unknown leaf " + decoded);
+        }
+        leaves[i] = leaf;
+      }
+      final int length = input.getInt();
+      // every nested filter takes at least one instruction
+      if (length <= 0 || length > input.remaining() / Integer.BYTES || depth > length) {
+        throw new IOException("Malformed instructions");
+      }
+      final IntBuffer code = input.slice().limit(length * Integer.BYTES).order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+      validate(code, leafCount, depth);
+      return new MappedFilter(new FilterProgram(code, leaves, depth));
+    } catch (final BufferUnderflowException e) {
+      throw new IOException("Truncated encoded filter", e);
+    }
+  }
+
+  /**
+   * Maps a file with an encoded filter into memory, and creates a filter that is queried directly from it.
+   *
+   * @param file the file
+   * @param registry the function resolving the leaves by their names, returning {@code null} for unknown names
+   * @return a mapped filter
+   * @throws IOException if the file could not be mapped, does not contain a valid encoded filter, or a leaf could not
+   *     be resolved
+   * @since 1.0.0
+   */
+  public static MappedFilter map(final Path file, final Function<? super String, ? extends @Nullable Filter> registry) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), registry);
+    }
+  }
+
+  // checks that the instructions form a single program of at most depth nested filters and calls, so that querying it
+  // cannot read outside of the instructions or the leaves, and that every call is to a filter which ends before it
+  private static void validate(final IntBuffer code, final int leafCount, final int depth) throws IOException {
+    final int length = code.limit();
+    final int[] remaining = new int[depth];
+    final int[] ends = new int[depth];
+    final int[] starts = new int[depth];
+    final int[] below = new int[depth];
+    // the most frames querying the filter at each instruction nests, or -1 if no checked filter starts there
+    final int[] heights = new int[length];
+    Arrays.fill(heights, -1);
+    int top = -1;
+    int pc = 0;
+    while (true) {
+      if (pc >= length) {
+        throw new IOException("Truncated instructions");
+      }
+      final int op = code.get(pc);
+      final int size = op == FilterProgram.NOT ? 1 : op == FilterProgram.CONST || op == FilterProgram.LEAF || op == FilterProgram.CALL ? 2 : 3;
+      if (op < FilterProgram.ALL || op > FilterProgram.CALL || pc + size > length) {
+        throw new IOException("Malformed instruction at " + pc);
+      }
+      final int operand = size > 1 ? code.get(pc + 1) : 0;
+      if (op == FilterProgram.NOT || op <= FilterProgram.ONE && operand > 0) {
+        if (++top == depth) {
+          throw new IOException("Instructions deeper than " + depth);
+        }
+        // a not filter has no jump target, and is marked by -1, which a composite must never encode
+        final int end = op == FilterProgram.NOT ? -1 : code.get(pc + 2);
+        if (op != FilterProgram.NOT && (end <= pc + size || end > length)) {
+          throw new IOException("Malformed jump target " + end + " at " + pc);
+        }
+        remaining[top] = op == FilterProgram.NOT ? 1 : operand;
+        ends[top] = end;
+        starts[top] = pc;
+        below[top] = 0;
+        pc += size;
+        continue;
+      } else if (op == FilterProgram.CONST && (operand < 0 || operand >= RESPONSES)
+        || op == FilterProgram.LEAF && (operand < 0 || operand >= leafCount)
+        || op <= FilterProgram.ONE && (operand < 0 || code.get(pc + 2) != pc + size)
+        || op == FilterProgram.CALL && (operand < 0 || operand >= pc || heights[operand] < 0)) {
+        throw new IOException("Malformed instruction at " + pc);
+      }
+      int height = op == FilterProgram.CALL ? 1 + heights[operand] : 0;
+      if (top + 1 + height > depth) {
+        throw new IOException("Instructions deeper than " + depth);
+      }
+      heights[pc] = height;
+      pc += size;
+      while (top >= 0) {
+        below[top] = Math.max(below[top], height);
+        if (--remaining[top] != 0) {
+          break;
+        }
+        if (ends[top] != -1 && ends[top] != pc) {
+          throw new IOException("Malformed jump target " + ends[top]);
+        }
+        height = 1 + below[top];
+        heights[starts[top]] = height;
+        top--;
+      }
+      if (top < 0) {
+        if (pc != length) {
+          throw new IOException("Trailing instructions at " + pc);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Gets the leaves of this filter, as resolved by the registry.
+   *
+   * @return the leaves
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<Filter> leaves() {
+    return this.program.leaves();
+  }
+
+  /**
+   * Gets the largest number of nested all, any, one and not filters and calls in this filter.
+   *
+   * @return the depth
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int depth() {
+    return this.program.depth();
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    return this.program.query(query);
+  }
+
+  @Override
+  public String toString() {
+    return "MappedFilter[program=" + this.program + "]";
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// Queries a filter tree in which some filter instances appear more than once, querying each of those at most once per
+// query. Shared filters are found when the filter is created and numbered, and their responses are kept in a scratch
+// array of the querying thread, indexed by their number. A generation stamp per entry tells which entries belong to
+// the current query, so the array is never cleared.
+@NullMarked
+final class MemoizedFilter implements Filter {
+  private final Filter filter;
+  private final Node root;
+  private final int slots;
+  private final ThreadLocal<Scratch> scratch;
+
+  private MemoizedFilter(final Filter filter, final Node root, final int slots) {
+    this.filter = filter;
+    this.root = root;
+    this.slots = slots;
+    this.scratch = ThreadLocal.withInitial(() -> new Scratch(slots));
+  }
+
+  static Filter memoize(final Filter filter) {
+    final Map<Filter, Integer> occurrences = new IdentityHashMap<>();
+    count(filter, occurrences);
+    final Map<Filter, Node> nodes = new IdentityHashMap<>();
+    final int[] slots = new int[1];
+    final Node root = node(filter, occurrences, nodes, slots);
+    if (slots[0] == 0) {
+      return filter;
+    }
+    return new MemoizedFilter(filter, root, slots[0]);
+  }
+
+  // counts the occurrences of each filter, without counting the children of a filter again for each occurrence
+  private static void count(final Filter filter, final Map<Filter, Integer> occurrences) {
+    if (occurrences.merge(filter, 1, Integer::sum) > 1) {
+      return;
+    }
+    if (Composition.of(filter) != null) {
+      for (final Filter child : Composition.children(filter)) {
+        count(child, occurrences);
+      }
+    } else if (filter instanceof final NotFilter not) {
+      count(not.filter(), occurrences);
+    }
+  }
+
+  private static Node node(final Filter filter, final Map<Filter, Integer> occurrences, final Map<Filter, Node> nodes, final int[] slots) {
+    final @Nullable Node existing = nodes.get(filter);
+    if (existing != null) {
+      return existing;
+    }
+    // constants are cheaper to query than to memoize
+    final int slot = occurrences.get(filter) > 1 && !(filter instanceof ConstantFilter) ? slots[0]++ : Node.NO_SLOT;
+    final @Nullable Composition composition = Composition.of(filter);
+    final Node node;
+    if (composition != null) {
+      final List<? extends Filter> children = Composition.children(filter);
+      final Node[] childNodes = new Node[children.size()];
+      for (int i = 0; i < childNodes.length; i++) {
+        childNodes[i] = node(children.get(i), occurrences, nodes, slots);
+      }
+      node = new Node(filter, composition, childNodes, false, slot);
+    } else if (filter instanceof final NotFilter not) {
+      node = new Node(filter, null, new Node[]{node(not.filter(), occurrences, nodes, slots)}, true, slot);
+    } else {
+      node = new Node(filter, null, new Node[0], false, slot);
+    }
+    nodes.put(filter, node);
+    return node;
+  }
+
+  int slots() {
+    return this.slots;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    Scratch scratch = this.scratch.get();
+    if (scratch.busy) {
+      // a filter of this tree is querying the tree again on the same thread
+      scratch = new Scratch(this.slots);
+    }
+    scratch.begin();
+    try {
+      return query(this.root, query, scratch);
+    } finally {
+      scratch.busy = false;
+    }
+  }
+
+  private static FilterResponse query(final Node node, final FilterQuery query, final Scratch scratch) {
+    final int slot = node.slot;
+    if (slot != Node.NO_SLOT && scratch.generations[slot] == scratch.generation) {
+      return scratch.responses[slot];
+    }
+    final FilterResponse response;
+    final @Nullable Composition composition = node.composition;
+    if (composition != null) {
+      response = compose(composition, node.children, query, scratch);
+    } else if (node.not) {
+      response = switch (query(node.children[0], query, scratch)) {
+        case ALLOW -> FilterResponse.DENY;
+        case DENY -> FilterResponse.ALLOW;
+        case ABSTAIN -> FilterResponse.ABSTAIN;
+      };
+    } else {
+      response = node.filter.query(query);
+    }
+    if (slot != Node.NO_SLOT) {
+      scratch.generations[slot] = scratch.generation;
+      scratch.responses[slot] = response;
+    }
+    return response;
+  }
+
+  private static FilterResponse compose(final Composition composition, final Node[] children, final FilterQuery query, final Scratch scratch) {
+    FilterResponse state = FilterResponse.ABSTAIN;
+    for (final Node child : children) {
+      final @Nullable FilterResponse next = composition.next(state, query(child, query, scratch));
+      if (next == null) {
+        return composition.shortCircuit();
+      }
+      state = next;
+    }
+    return state;
+  }
+
+  @Override
+  public String toString() {
+    return "MemoizedFilter[filter=" + this.filter + ", slots=" + this.slots + "]";
+  }
+
+  private static final class Node {
+    static final int NO_SLOT = -1;
+    final Filter filter;
+    final @Nullable Composition composition;
+    final Node[] children;
+    final boolean not;
+    final int slot;
+
+    Node(final Filter filter, final @Nullable Composition composition, final Node[] children, final boolean not, final int slot) {
+      this.filter = filter;
+      this.composition = composition;
+      this.children = children;
+      this.not = not;
+      this.slot = slot;
+    }
+  }
+
+  private static final class Scratch {
+    final int[] generations;
+    final FilterResponse[] responses;
+    int generation;
+    boolean busy;
+
+    Scratch(final int slots) {
+      this.generations = new int[slots];
+      this.responses = new FilterResponse[slots];
+    }
+
+    void begin() {
+      this.busy = true;
+      this.generation++;
+      if (this.generation == 0) {
+        // every stamp may match again after the generation wraps around
+        Arrays.fill(this.generations, 0);
+        this.generation = 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Collects the metrics of instrumented filters.
+ *
+ * <p>While the sink is disabled, instrumented filters query the filters they instrument directly, and record
+ * nothing.</p>
+ *
+ * <p>The sink does not keep instrumented filters reachable. Once an instrumented filter has been garbage collected,
+ * the metrics of it and its children are discarded.</p>
+ *
+ * @see Filter#instrumented(Filter, MetricsSink)
+ * @since 1.0.0
+ */
+@NullMarked
+public final class MetricsSink {
+  // the metrics of each instrumented tree, until its root is garbage collected
+  private final List<Tree> trees = new CopyOnWriteArrayList<>();
+  private final ReferenceQueue<InstrumentedFilter> queue = new ReferenceQueue<>();
+  private volatile boolean enabled;
+
+  private MetricsSink(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Creates an enabled metrics sink.
+   *
+   * @return a metrics sink
+   * @since 1.0.0
+   */
+  @Contract(value = "-> new", pure = true)
+  public static MetricsSink create() {
+    return new MetricsSink(true);
+  }
+
+  /**
+   * Gets whether metrics are being recorded.
+   *
+   * @return {@code true} if metrics are being recorded
+   * @since 1.0.0
+   */
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether metrics are being recorded.
+   *
+   * @param enabled whether metrics should be recorded
+   * @since 1.0.0
+   */
+  public void enabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Gets the metrics of every filter instrumented with this sink, parents before their children.
+   *
+   * @return the metrics
+   * @since 1.0.0
+   */
+  public List<FilterMetrics> metrics() {
+    this.expunge();
+    final List<FilterMetrics> metrics = new ArrayList<>();
+    for (final Tree tree : this.trees) {
+      metrics.addAll(tree.metrics);
+    }
+    return List.copyOf(metrics);
+  }
+
+  /**
+   * Discards all recorded metrics.
+   *
+   * @since 1.0.0
+   */
+  public void reset() {
+    this.expunge();
+    for (final Tree tree : this.trees) {
+      for (final FilterMetrics metrics : tree.metrics) {
+        metrics.reset();
+      }
+    }
+  }
+
+  void register(final InstrumentedFilter root, final List<FilterMetrics> metrics) {
+    this.expunge();
+    this.trees.add(new Tree(root, metrics, this.queue));
+  }
+
+  private void expunge() {
+    @Nullable Reference<? extends InstrumentedFilter> reference = this.queue.poll();
+    while (reference != null) {
+      this.trees.remove(reference);
+      reference = this.queue.poll();
+    }
+  }
+
+  // the metrics of an instrumented filter and its children, parents before their children
+  private static final class Tree extends WeakReference<InstrumentedFilter> {
+    private final List<FilterMetrics> metrics;
+
+    Tree(final InstrumentedFilter root, final List<FilterMetrics> metrics, final ReferenceQueue<InstrumentedFilter> queue) {
+      super(root, queue);
+      this.metrics = metrics;
+    }
+  }
+}
@@ -23,6 +23,7 @@
  */
 package com.seiama.filter;
 
+import java.util.List;
 import org.jspecify.annotations.NullMarked;
 
 @NullMarked
@@ -35,4 +36,16 @@ record NotFilterImpl(Filter filter) implements NotFilter {
       case ABSTAIN -> FilterResponse.ABSTAIN;
     };
   }
+
+  @Override
+  public void query(final List<? extends FilterQuery> queries, final FilterResponse[] responses) {
+    this.filter.query(queries, responses);
+    for (int i = 0, size = queries.size(); i < size; i++) {
+      responses[i] = switch (responses[i]) {
+        case ALLOW -> FilterResponse.DENY;
+        case DENY -> FilterResponse.ALLOW;
+        case ABSTAIN -> FilterResponse.ABSTAIN;
+      };
+    }
+  }
 }
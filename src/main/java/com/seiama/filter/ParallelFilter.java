@@ -0,0 +1,55 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that queries the children of an {@link AllFilter}, {@link AnyFilter} or {@link OneFilter} in parallel.
+ *
+ * <p>The children are split into ranges which are queried by the tasks of a {@link java.util.concurrent.ForkJoinPool}.
+ * As soon as a range contains a response which decides the response of the whole filter - a denial for an all filter,
+ * an allowance for an any filter, or two allowances in a row for a one filter - the remaining tasks stop querying. The
+ * response is the same as that of the original filter, as long as the children are free of side effects.</p>
+ *
+ * <p>Filters with no more children than the sequential threshold are queried sequentially.</p>
+ *
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface ParallelFilter extends Filter permits ParallelFilterImpl {
+  /**
+   * Gets the original filter.
+   *
+   * <p>The original filter should not be queried manually.</p>
+   *
+   * @return the original filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Filter filter();
+}
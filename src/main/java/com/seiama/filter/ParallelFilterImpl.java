@@ -0,0 +1,140 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+final class ParallelFilterImpl implements ParallelFilter {
+  static final int DEFAULT_THRESHOLD = 32;
+  private final Filter filter;
+  private final Composition composition;
+  private final Filter[] filters;
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  ParallelFilterImpl(final Filter filter, final ForkJoinPool pool, final int threshold) {
+    if (threshold <= 0) {
+      throw new IllegalArgumentException("threshold <= 0: " + threshold);
+    }
+    this.filter = filter;
+    this.composition = requireComposition(filter);
+    this.filters = Composition.children(filter).toArray(new Filter[0]);
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  private static Composition requireComposition(final Filter filter) {
+    final Composition composition = Composition.of(filter);
+    if (composition == null) {
+      throw new IllegalArgumentException("Not an all, any or one filter: " + filter);
+    }
+    return composition;
+  }
+
+  @Override
+  public Filter filter() {
+    return this.filter;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    if (this.filters.length <= this.threshold) {
+      return this.filter.query(query);
+    }
+    final Evaluation evaluation = new Evaluation(query, new FilterResponse[this.filters.length]);
+    this.pool.invoke(new Task(evaluation, 0, this.filters.length));
+    if (evaluation.decided) {
+      return this.composition.shortCircuit();
+    }
+    // every child has responded, so the response is that of querying them in order
+    FilterResponse state = FilterResponse.ABSTAIN;
+    for (final FilterResponse response : evaluation.responses) {
+      final @Nullable FilterResponse next = this.composition.next(state, response);
+      if (next == null) {
+        return this.composition.shortCircuit();
+      }
+      state = next;
+    }
+    return state;
+  }
+
+  @Override
+  public String toString() {
+    return "ParallelFilterImpl[filter=" + this.filter + ", threshold=" + this.threshold + "]";
+  }
+
+  private static final class Evaluation {
+    final FilterQuery query;
+    final FilterResponse[] responses;
+    volatile boolean decided;
+
+    Evaluation(final FilterQuery query, final FilterResponse[] responses) {
+      this.query = query;
+      this.responses = responses;
+    }
+  }
+
+  private final class Task extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final Evaluation evaluation;
+    private final int from;
+    private final int to;
+
+    Task(final Evaluation evaluation, final int from, final int to) {
+      this.evaluation = evaluation;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      final Evaluation evaluation = this.evaluation;
+      if (evaluation.decided) {
+        return;
+      }
+      if (this.to - this.from > ParallelFilterImpl.this.threshold) {
+        final int middle = (this.from + this.to) >>> 1;
+        invokeAll(new Task(evaluation, this.from, middle), new Task(evaluation, middle, this.to));
+        return;
+      }
+      // a range which stops early on its own stops the whole composition early, whatever came before it
+      FilterResponse state = FilterResponse.ABSTAIN;
+      for (int i = this.from; i < this.to && !evaluation.decided; i++) {
+        final FilterResponse response = ParallelFilterImpl.this.filters[i].query(evaluation.query);
+        evaluation.responses[i] = response;
+        final @Nullable FilterResponse next = ParallelFilterImpl.this.composition.next(state, response);
+        if (next == null) {
+          evaluation.decided = true;
+          return;
+        }
+        state = next;
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+record TracedFilterImpl(Filter filter, int sampleRate, Consumer<? super FilterTrace> consumer) implements Filter {
+  TracedFilterImpl {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("sampleRate must be positive, was " + sampleRate);
+    }
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    if (this.sampleRate == 1 || ThreadLocalRandom.current().nextInt(this.sampleRate) == 0) {
+      final FilterTrace trace = this.filter.explain(query);
+      this.consumer.accept(trace);
+      return trace.response();
+    }
+    return this.filter.query(query);
+  }
+
+  @Override
+  public FilterTrace explain(final FilterQuery query) {
+    return this.filter.explain(query);
+  }
+}
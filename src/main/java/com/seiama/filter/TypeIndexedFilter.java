@@ -0,0 +1,53 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that only queries the children of an {@link AllFilter}, {@link AnyFilter} or {@link OneFilter} which can
+ * respond to the type of the query.
+ *
+ * <p>Children which are {@link com.seiama.filter.typed.ClassTypedFilter}s are grouped by the type of query they accept,
+ * and skipped for queries of any other type. All other children are always queried. As skipped children would have
+ * abstained, the response is the same as that of the original filter.</p>
+ *
+ * @since 1.0.0
+ */
+@NonExtendable
+@NullMarked
+public sealed interface TypeIndexedFilter extends Filter permits TypeIndexedFilterImpl {
+  /**
+   * Gets the original filter.
+   *
+   * <p>The original filter should not be queried manually.</p>
+   *
+   * @return the original filter
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Filter filter();
+}
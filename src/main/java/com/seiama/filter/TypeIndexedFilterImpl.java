@@ -0,0 +1,83 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.typed.ClassTypedFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+final class TypeIndexedFilterImpl implements TypeIndexedFilter {
+  private final Filter filter;
+  private final ClassValue<Filter> index;
+
+  TypeIndexedFilterImpl(final Filter filter, final List<? extends Filter> filters, final Function<List<Filter>, Filter> composite) {
+    this.filter = filter;
+    this.index = new ClassValue<>() {
+      @Override
+      protected Filter computeValue(final Class<?> type) {
+        // skipped children would abstain, which never changes the response of an all, any or one filter
+        final List<Filter> candidates = new ArrayList<>(filters.size());
+        for (final Filter child : filters) {
+          if (!(child instanceof final ClassTypedFilter<?> typed) || typed.queryType().isAssignableFrom(type)) {
+            candidates.add(child);
+          }
+        }
+        return switch (candidates.size()) {
+          case 0 -> Filter.abstain();
+          case 1 -> candidates.get(0);
+          default -> composite.apply(candidates);
+        };
+      }
+    };
+  }
+
+  @Override
+  public Filter filter() {
+    return this.filter;
+  }
+
+  @Override
+  public FilterResponse query(final FilterQuery query) {
+    return this.index.get(query.getClass()).query(query);
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object other) {
+    return this == other || other instanceof final TypeIndexedFilterImpl that && this.filter.equals(that.filter);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.filter.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "TypeIndexedFilterImpl[filter=" + this.filter + "]";
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import com.seiama.filter.AllFilter;
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.typed.ClassTypedFilter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that denies queries whose key is definitely not in a set of keys, and abstains from all other queries of its
+ * type.
+ *
+ * <p>The set is approximate: a key which was never added is reported as possibly present with a small probability,
+ * but a key which was added is always reported as possibly present. Put in front of an exact membership filter with
+ * {@link #inFrontOf(Filter)}, most queries for absent keys are denied without querying the exact filter.</p>
+ *
+ * <p>Keys are stored in a blocked Bloom filter: the bits of each key lie within a single 512-bit block, so a query
+ * reads a single cache line. Keys can be added while the filter is being queried.</p>
+ *
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public final class BloomFilter<Q extends FilterQuery> implements ClassTypedFilter<Q> {
+  private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+  private static final int BLOCK_SHIFT = 9;
+  private static final int BLOCK_BITS = 1 << BLOCK_SHIFT;
+  // each bit within a block is chosen by 9 bits of a hash, so a 64-bit hash chooses 7 bits
+  private static final int BITS_PER_HASH = Long.SIZE / BLOCK_SHIFT;
+  private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+  private static final long MAXIMUM_BLOCKS = Integer.MAX_VALUE / BLOCK_WORDS;
+  private static final int MAXIMUM_HASH_FUNCTIONS = 64;
+  private final Class<Q> queryType;
+  private final ToLongFunction<? super Q> fingerprint;
+  private final boolean strings;
+  private final long[] words;
+  private final int blocks;
+  private final int hashFunctions;
+
+  private BloomFilter(final Class<Q> queryType, final ToLongFunction<? super Q> fingerprint, final boolean strings, final long expectedSize, final double falsePositiveRate) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative, was " + expectedSize);
+    } else if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1, was " + falsePositiveRate);
+    }
+    final double keys = Math.max(1, expectedSize);
+    // the number of bits an unblocked filter would need, which is too few: keys are spread unevenly across blocks
+    double bits = -keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    long blocks;
+    int hashFunctions;
+    do {
+      blocks = Math.max(1, (long) Math.ceil(bits / BLOCK_BITS));
+      if (blocks > MAXIMUM_BLOCKS) {
+        throw new IllegalArgumentException("Too many bits required: " + bits);
+      }
+      hashFunctions = (int) Math.max(1, Math.min(MAXIMUM_HASH_FUNCTIONS, Math.round(blocks * BLOCK_BITS / keys * Math.log(2))));
+      bits = blocks * BLOCK_BITS * 1.05;
+    } while (falsePositiveRate(keys / blocks, hashFunctions) > falsePositiveRate);
+    this.queryType = queryType;
+    this.fingerprint = fingerprint;
+    this.strings = strings;
+    this.blocks = (int) blocks;
+    this.words = new long[this.blocks * BLOCK_WORDS];
+    this.hashFunctions = hashFunctions;
+  }
+
+  // the false positive rate of a blocked filter, where the number of keys in a block follows a Poisson distribution
+  private static double falsePositiveRate(final double keysPerBlock, final int hashFunctions) {
+    final double upper = keysPerBlock + 10 * Math.sqrt(keysPerBlock) + 10;
+    final double logKeysPerBlock = Math.log(keysPerBlock);
+    double logProbability = -keysPerBlock;
+    double rate = 0;
+    for (int keys = 0; keys <= upper; keys++) {
+      if (keys > 0) {
+        logProbability += logKeysPerBlock - Math.log(keys);
+      }
+      final double set = 1 - Math.pow(1 - 1.0 / BLOCK_BITS, (double) hashFunctions * keys);
+      rate += Math.exp(logProbability) * Math.pow(set, hashFunctions);
+    }
+    return rate;
+  }
+
+  /**
+   * Creates an empty Bloom filter of {@code long} keys.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the key of a query
+   * @param expectedSize the number of keys expected to be added
+   * @param falsePositiveRate the desired probability that a key which was not added is reported as possibly present,
+   *     once {@code expectedSize} keys have been added
+   * @param <Q> the query type
+   * @return a Bloom filter
+   * @throws IllegalArgumentException if {@code expectedSize} is negative, {@code falsePositiveRate} is not between
+   *     {@code 0} and {@code 1}, or the filter would be too large
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> BloomFilter<Q> ofLongs(final Class<Q> queryType, final ToLongFunction<? super Q> key, final long expectedSize, final double falsePositiveRate) {
+    return new BloomFilter<>(queryType, query -> Fingerprints.of(key.applyAsLong(query)), false, expectedSize, falsePositiveRate);
+  }
+
+  /**
+   * Creates an empty Bloom filter of string keys.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the key of a query
+   * @param expectedSize the number of keys expected to be added
+   * @param falsePositiveRate the desired probability that a key which was not added is reported as possibly present,
+   *     once {@code expectedSize} keys have been added
+   * @param <Q> the query type
+   * @return a Bloom filter
+   * @throws IllegalArgumentException if {@code expectedSize} is negative, {@code falsePositiveRate} is not between
+   *     {@code 0} and {@code 1}, or the filter would be too large
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> BloomFilter<Q> ofStrings(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> key, final long expectedSize, final double falsePositiveRate) {
+    return new BloomFilter<>(queryType, query -> Fingerprints.of(key.apply(query)), true, expectedSize, falsePositiveRate);
+  }
+
+  @Override
+  public Class<Q> queryType() {
+    return this.queryType;
+  }
+
+  @Override
+  public FilterResponse typedQuery(final Q query) {
+    return this.mightContainFingerprint(this.fingerprint.applyAsLong(query)) ? FilterResponse.ABSTAIN : FilterResponse.DENY;
+  }
+
+  /**
+   * Creates a filter that queries {@code filter} only when this filter does not deny the query.
+   *
+   * <p>If {@code filter} denies every query whose key was not added to this filter, the created filter responds
+   * exactly like {@code filter}.</p>
+   *
+   * @param filter the exact filter
+   * @return an all filter of this filter and {@code filter}
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public AllFilter inFrontOf(final Filter filter) {
+    return Filter.all(this, filter);
+  }
+
+  /**
+   * Adds a {@code long} key.
+   *
+   * @param key the key
+   * @throws IllegalStateException if this is a filter of string keys
+   * @since 1.0.0
+   */
+  public void add(final long key) {
+    this.checkStrings(false);
+    this.addFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Adds a string key.
+   *
+   * @param key the key
+   * @throws IllegalStateException if this is a filter of {@code long} keys
+   * @since 1.0.0
+   */
+  public void add(final CharSequence key) {
+    this.checkStrings(true);
+    this.addFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Tests if a {@code long} key might have been added.
+   *
+   * @param key the key
+   * @return {@code false} if the key was definitely not added
+   * @throws IllegalStateException if this is a filter of string keys
+   * @since 1.0.0
+   */
+  public boolean mightContain(final long key) {
+    this.checkStrings(false);
+    return this.mightContainFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Tests if a string key might have been added.
+   *
+   * @param key the key
+   * @return {@code false} if the key was definitely not added
+   * @throws IllegalStateException if this is a filter of {@code long} keys
+   * @since 1.0.0
+   */
+  public boolean mightContain(final CharSequence key) {
+    this.checkStrings(true);
+    return this.mightContainFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Gets the number of bits set for each key.
+   *
+   * @return the number of hash functions
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int hashFunctions() {
+    return this.hashFunctions;
+  }
+
+  /**
+   * Estimates the probability that a key which was not added is reported as possibly present, from the proportion of
+   * bits which are set in each block.
+   *
+   * <p>This reads every bit, so it should not be called on every query.</p>
+   *
+   * @return the estimated false positive rate
+   * @since 1.0.0
+   */
+  public double estimatedFalsePositiveRate() {
+    double rate = 0;
+    for (int block = 0; block < this.words.length; block += BLOCK_WORDS) {
+      int set = 0;
+      for (int i = block; i < block + BLOCK_WORDS; i++) {
+        set += Long.bitCount((long) WORDS.getOpaque(this.words, i));
+      }
+      rate += Math.pow((double) set / BLOCK_BITS, this.hashFunctions);
+    }
+    return rate / this.blocks;
+  }
+
+  /**
+   * Gets the memory used by the bits of this filter, in bytes.
+   *
+   * @return the memory used
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public long memoryUsage() {
+    return this.words.length * (long) Long.BYTES;
+  }
+
+  private void checkStrings(final boolean strings) {
+    if (this.strings != strings) {
+      throw new IllegalStateException(this.strings ? "Not a filter of long keys" : "Not a filter of string keys");
+    }
+  }
+
+  private void addFingerprint(final long fingerprint) {
+    final int block = this.block(fingerprint);
+    long seed = fingerprint;
+    long hash = 0;
+    for (int i = 0; i < this.hashFunctions; i++) {
+      if (i % BITS_PER_HASH == 0) {
+        seed = Fingerprints.mix(seed + PHI);
+        hash = seed;
+      } else {
+        hash >>>= BLOCK_SHIFT;
+      }
+      final int bit = (int) hash & BLOCK_BITS - 1;
+      WORDS.getAndBitwiseOr(this.words, block + (bit >>> 6), 1L << bit);
+    }
+  }
+
+  private boolean mightContainFingerprint(final long fingerprint) {
+    final int block = this.block(fingerprint);
+    long seed = fingerprint;
+    long hash = 0;
+    for (int i = 0; i < this.hashFunctions; i++) {
+      if (i % BITS_PER_HASH == 0) {
+        seed = Fingerprints.mix(seed + PHI);
+        hash = seed;
+      } else {
+        hash >>>= BLOCK_SHIFT;
+      }
+      final int bit = (int) hash & BLOCK_BITS - 1;
+      if (((long) WORDS.getOpaque(this.words, block + (bit >>> 6)) & 1L << bit) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the first word of the block of a fingerprint
+  private int block(final long fingerprint) {
+    return (int) Math.multiplyHigh(fingerprint >>> 1, (long) this.blocks << 1) * BLOCK_WORDS;
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilter[queryType=" + this.queryType.getName() + ", bits=" + this.words.length * (long) Long.SIZE + ", hashFunctions=" + this.hashFunctions + "]";
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jspecify.annotations.NullMarked;
+
+// An open addressing set of longs with linear probing. Lookups never lock or allocate. Updates are serialized by a
+// lock and applied in place, so a lookup racing an update sees the set either before or after it; when the table fills
+// up, it is rebuilt into a new table which is then published.
+@NullMarked
+final class ConcurrentLongSet {
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final long EMPTY = 0;
+  private static final long REMOVED = Long.MIN_VALUE;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+  private static final int MINIMUM_CAPACITY = 16;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile long[] table = new long[MINIMUM_CAPACITY];
+  // EMPTY and REMOVED mark slots, so they cannot be stored in the table themselves
+  private volatile boolean containsEmpty;
+  private volatile boolean containsRemoved;
+  private volatile int size;
+  private int used; // slots which are not empty, including removed slots; guarded by lock
+
+  boolean contains(final long key) {
+    if (key == EMPTY) {
+      return this.containsEmpty;
+    } else if (key == REMOVED) {
+      return this.containsRemoved;
+    }
+    final long[] table = this.table;
+    final int mask = table.length - 1;
+    // the table always has an empty slot, so the probe ends
+    for (int i = index(key, mask); ; i = i + 1 & mask) {
+      final long slot = (long) SLOTS.getAcquire(table, i);
+      if (slot == key) {
+        return true;
+      } else if (slot == EMPTY) {
+        return false;
+      }
+    }
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  boolean add(final long key) {
+    this.lock.lock();
+    try {
+      if (key == EMPTY || key == REMOVED) {
+        final boolean added = !this.contains(key);
+        if (added) {
+          this.special(key, true);
+          this.size++;
+        }
+        return added;
+      }
+      long[] table = this.table;
+      int mask = table.length - 1;
+      int removed = -1;
+      int slot = index(key, mask);
+      for (long current = table[slot]; current != EMPTY; current = table[slot]) {
+        if (current == key) {
+          return false;
+        } else if (current == REMOVED && removed == -1) {
+          removed = slot;
+        }
+        slot = slot + 1 & mask;
+      }
+      if (removed != -1) {
+        slot = removed;
+      } else if (this.used + 1 > maximumUsed(table.length)) {
+        table = this.rehash(this.regularSize() + 1);
+        mask = table.length - 1;
+        slot = index(key, mask);
+        while (table[slot] != EMPTY) {
+          slot = slot + 1 & mask;
+        }
+        this.used++;
+      } else {
+        this.used++;
+      }
+      SLOTS.setRelease(table, slot, key);
+      this.size++;
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  boolean remove(final long key) {
+    this.lock.lock();
+    try {
+      if (key == EMPTY || key == REMOVED) {
+        final boolean removed = this.contains(key);
+        if (removed) {
+          this.special(key, false);
+          this.size--;
+        }
+        return removed;
+      }
+      final long[] table = this.table;
+      final int mask = table.length - 1;
+      for (int i = index(key, mask); table[i] != EMPTY; i = i + 1 & mask) {
+        if (table[i] == key) {
+          SLOTS.setRelease(table, i, REMOVED);
+          this.size--;
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  void clear() {
+    this.lock.lock();
+    try {
+      this.table = new long[MINIMUM_CAPACITY];
+      this.containsEmpty = false;
+      this.containsRemoved = false;
+      this.used = 0;
+      this.size = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void special(final long key, final boolean contains) {
+    if (key == EMPTY) {
+      this.containsEmpty = contains;
+    } else {
+      this.containsRemoved = contains;
+    }
+  }
+
+  // the number of keys stored in the table
+  private int regularSize() {
+    return this.size - (this.containsEmpty ? 1 : 0) - (this.containsRemoved ? 1 : 0);
+  }
+
+  // copies the keys into a new table with room for at least the given number of keys, dropping removed slots
+  private long[] rehash(final int keys) {
+    int capacity = MINIMUM_CAPACITY;
+    while (maximumUsed(capacity) < keys) {
+      if (capacity == MAXIMUM_CAPACITY) {
+        throw new IllegalStateException("Set is full");
+      }
+      capacity <<= 1;
+    }
+    final long[] table = new long[capacity];
+    final int mask = capacity - 1;
+    int used = 0;
+    for (final long key : this.table) {
+      if (key != EMPTY && key != REMOVED) {
+        int slot = index(key, mask);
+        while (table[slot] != EMPTY) {
+          slot = slot + 1 & mask;
+        }
+        table[slot] = key;
+        used++;
+      }
+    }
+    this.used = used;
+    this.table = table;
+    return table;
+  }
+
+  // at most three quarters of the slots are used, so there is always an empty slot
+  private static int maximumUsed(final int capacity) {
+    return capacity - (capacity >>> 2);
+  }
+
+  private static int index(final long key, final int mask) {
+    final long hash = key * PHI;
+    return (int) (hash ^ hash >>> 32) & mask;
+  }
+}
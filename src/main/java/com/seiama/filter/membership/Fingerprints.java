@@ -0,0 +1,53 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import org.jspecify.annotations.NullMarked;
+
+// 64-bit fingerprints of keys, which are stable across runs so that they can be saved.
+@NullMarked
+final class Fingerprints {
+  private Fingerprints() {
+  }
+
+  // a bijection, so distinct keys have distinct fingerprints
+  static long of(final long key) {
+    return mix(key);
+  }
+
+  static long of(final CharSequence key) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0, length = key.length(); i < length; i++) {
+      hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+    }
+    return mix(hash ^ key.length());
+  }
+
+  // the finalizer of MurmurHash3, a bijection which spreads every bit of the value across the result
+  static long mix(final long value) {
+    final long first = (value ^ value >>> 33) * 0xFF51AFD7ED558CCDL;
+    final long second = (first ^ first >>> 33) * 0xC4CEB9FE1A85EC53L;
+    return second ^ second >>> 33;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.typed.ClassTypedFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that allows queries whose key is in an immutable {@link PerfectHashKeys} set, and denies all other queries of
+ * its type.
+ *
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public final class PerfectHashFilter<Q extends FilterQuery> implements ClassTypedFilter<Q>, StronglyTypedFilter<Q> {
+  private final Class<Q> queryType;
+  private final ToLongFunction<? super Q> fingerprint;
+  private final PerfectHashKeys keys;
+
+  private PerfectHashFilter(final Class<Q> queryType, final ToLongFunction<? super Q> fingerprint, final PerfectHashKeys keys) {
+    this.queryType = queryType;
+    this.fingerprint = fingerprint;
+    this.keys = keys;
+  }
+
+  /**
+   * Creates a perfect hash filter of {@code long} keys.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the key of a query
+   * @param keys the set of keys, built by {@link PerfectHashKeys#ofLongs(long...)}
+   * @param <Q> the query type
+   * @return a perfect hash filter
+   * @throws IllegalArgumentException if {@code keys} is a set of string keys
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> PerfectHashFilter<Q> ofLongs(final Class<Q> queryType, final ToLongFunction<? super Q> key, final PerfectHashKeys keys) {
+    if (keys.strings()) {
+      throw new IllegalArgumentException("Not a set of long keys");
+    }
+    return new PerfectHashFilter<>(queryType, query -> Fingerprints.of(key.applyAsLong(query)), keys);
+  }
+
+  /**
+   * Creates a perfect hash filter of string keys.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the key of a query
+   * @param keys the set of keys, built by {@link PerfectHashKeys#ofStrings(java.util.Collection)}
+   * @param <Q> the query type
+   * @return a perfect hash filter
+   * @throws IllegalArgumentException if {@code keys} is a set of {@code long} keys
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> PerfectHashFilter<Q> ofStrings(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> key, final PerfectHashKeys keys) {
+    if (!keys.strings()) {
+      throw new IllegalArgumentException("Not a set of string keys");
+    }
+    return new PerfectHashFilter<>(queryType, query -> Fingerprints.of(key.apply(query)), keys);
+  }
+
+  /**
+   * Gets the set of keys.
+   *
+   * @return the keys
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public PerfectHashKeys keys() {
+    return this.keys;
+  }
+
+  @Override
+  public Class<Q> queryType() {
+    return this.queryType;
+  }
+
+  @Override
+  public boolean queryResponse(final Q query) {
+    return this.keys.containsFingerprint(this.fingerprint.applyAsLong(query));
+  }
+
+  @Override
+  public String toString() {
+    return "PerfectHashFilter[queryType=" + this.queryType.getName() + ", size=" + this.keys.size() + "]";
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * An immutable set of {@code long} or string keys, indexed by a minimal perfect hash function.
+ *
+ * <p>Each key is reduced to a 64-bit fingerprint. {@code long} keys are mixed by a bijection, so their fingerprints
+ * are exact; string fingerprints are a 64-bit hash, so a string which is not in the set is reported as present with a
+ * probability of about {@code 2^-64}. The fingerprints are mapped onto {@code [0, size)} without collisions by a
+ * cascade of bit arrays, taking about 5 bits per key, and stored at their index to verify lookups, taking 8 bytes per
+ * key. A lookup usually reads two or three words.</p>
+ *
+ * <p>Construction is spread across the common pool for large sets. Built sets can be saved with
+ * {@link #writeTo(DataOutput)} and loaded with {@link #readFrom(DataInput)} instead of being rebuilt.</p>
+ *
+ * @see PerfectHashFilter
+ * @since 1.0.0
+ */
+@NullMarked
+public final class PerfectHashKeys {
+  private static final int VERSION = 1;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+  private static final int GAMMA = 2; // bits per key in each level
+  private static final int MAXIMUM_LEVELS = 64;
+  private static final int PARALLEL_THRESHOLD = 1 << 14;
+  // arrays read from an input start at most this long, and grow as words are read
+  private static final int INITIAL_READ_LENGTH = 1 << 10;
+  private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+  private final boolean strings;
+  private final int[] levels; // the first word of each level, and the end of the last level
+  private final long[] bits;
+  private final int[] ranks; // the number of set bits before each word
+  private final long[] fingerprints;
+
+  private PerfectHashKeys(final boolean strings, final int[] levels, final long[] bits, final long[] fingerprints) {
+    this.strings = strings;
+    this.levels = levels;
+    this.bits = bits;
+    this.ranks = new int[bits.length];
+    for (int i = 1; i < bits.length; i++) {
+      this.ranks[i] = this.ranks[i - 1] + Long.bitCount(bits[i - 1]);
+    }
+    this.fingerprints = fingerprints;
+  }
+
+  /**
+   * Builds a set of {@code long} keys.
+   *
+   * @param keys the keys, which may contain duplicates
+   * @return the set
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static PerfectHashKeys ofLongs(final long... keys) {
+    final long[] fingerprints = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      fingerprints[i] = Fingerprints.of(keys[i]);
+    }
+    return build(false, fingerprints);
+  }
+
+  /**
+   * Builds a set of string keys.
+   *
+   * @param keys the keys, which may contain duplicates
+   * @return the set
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static PerfectHashKeys ofStrings(final Collection<? extends CharSequence> keys) {
+    final long[] fingerprints = new long[keys.size()];
+    int i = 0;
+    for (final CharSequence key : keys) {
+      fingerprints[i++] = Fingerprints.of(key);
+    }
+    return build(true, fingerprints);
+  }
+
+  /**
+   * Reads a set written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in the input
+   * @return the set
+   * @throws IOException if the set could not be read, or is not a valid set
+   * @since 1.0.0
+   */
+  public static PerfectHashKeys readFrom(final DataInput in) throws IOException {
+    final int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version);
+    }
+    final boolean strings = in.readBoolean();
+    final int levelCount = in.readInt();
+    if (levelCount < 0 || levelCount > MAXIMUM_LEVELS + 1) {
+      throw new IOException("Invalid number of levels " + levelCount);
+    }
+    final int[] levels = new int[levelCount];
+    for (int i = 0; i < levels.length; i++) {
+      levels[i] = in.readInt();
+      if (levels[i] < (i == 0 ? 0 : levels[i - 1] + 1) || i == 0 && levels[i] != 0) {
+        throw new IOException("Invalid level " + i);
+      }
+    }
+    final long[] bits = readLongs(in, levels.length == 0 ? 0 : levels[levels.length - 1]);
+    long size = 0;
+    for (final long word : bits) {
+      size += Long.bitCount(word);
+    }
+    // there is a fingerprint for every set bit
+    final int fingerprintCount = in.readInt();
+    if (fingerprintCount != size) {
+      throw new IOException("Expected " + size + " keys, was " + fingerprintCount);
+    }
+    final long[] fingerprints = readLongs(in, fingerprintCount);
+    final PerfectHashKeys keys = new PerfectHashKeys(strings, levels, bits, fingerprints);
+    for (int i = 0; i < fingerprints.length; i++) {
+      if (keys.index(fingerprints[i]) != i) {
+        throw new IOException("Invalid fingerprint " + i);
+      }
+    }
+    return keys;
+  }
+
+  // grows the array as words are read, so that a corrupt length fails at the end of the input rather than allocating
+  // memory for words which are not there
+  private static long[] readLongs(final DataInput in, final int length) throws IOException {
+    long[] words = new long[Math.min(length, INITIAL_READ_LENGTH)];
+    for (int i = 0; i < length; i++) {
+      if (i == words.length) {
+        words = Arrays.copyOf(words, (int) Math.min(length, words.length * 2L));
+      }
+      words[i] = in.readLong();
+    }
+    return words;
+  }
+
+  /**
+   * Writes this set, to be read by {@link #readFrom(DataInput)}.
+   *
+   * @param out the output
+   * @throws IOException if the set could not be written
+   * @since 1.0.0
+   */
+  public void writeTo(final DataOutput out) throws IOException {
+    out.writeInt(VERSION);
+    out.writeBoolean(this.strings);
+    out.writeInt(this.levels.length);
+    for (final int level : this.levels) {
+      out.writeInt(level);
+    }
+    for (final long word : this.bits) {
+      out.writeLong(word);
+    }
+    out.writeInt(this.fingerprints.length);
+    for (final long fingerprint : this.fingerprints) {
+      out.writeLong(fingerprint);
+    }
+  }
+
+  /**
+   * Tests if a {@code long} key is in this set.
+   *
+   * @param key the key
+   * @return {@code true} if the key is in this set
+   * @throws IllegalStateException if this is a set of string keys
+   * @since 1.0.0
+   */
+  public boolean contains(final long key) {
+    if (this.strings) {
+      throw new IllegalStateException("Not a set of long keys");
+    }
+    return this.containsFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Tests if a string key is in this set.
+   *
+   * @param key the key
+   * @return {@code true} if the key is in this set
+   * @throws IllegalStateException if this is a set of {@code long} keys
+   * @since 1.0.0
+   */
+  public boolean contains(final CharSequence key) {
+    if (!this.strings) {
+      throw new IllegalStateException("Not a set of string keys");
+    }
+    return this.containsFingerprint(Fingerprints.of(key));
+  }
+
+  /**
+   * Gets the number of keys in this set.
+   *
+   * @return the number of keys
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int size() {
+    return this.fingerprints.length;
+  }
+
+  /**
+   * Gets an estimate of the memory used by this set, in bytes.
+   *
+   * @return the memory used
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public long memoryUsage() {
+    return this.bits.length * (long) Long.BYTES + this.ranks.length * (long) Integer.BYTES + this.fingerprints.length * (long) Long.BYTES;
+  }
+
+  boolean strings() {
+    return this.strings;
+  }
+
+  boolean containsFingerprint(final long fingerprint) {
+    final int index = this.index(fingerprint);
+    return index >= 0 && this.fingerprints[index] == fingerprint;
+  }
+
+  // the index of the fingerprint if it is in this set, otherwise either -1 or the index of another fingerprint
+  private int index(final long fingerprint) {
+    for (int level = 0; level < this.levels.length - 1; level++) {
+      final int start = this.levels[level];
+      final long position = start * (long) Long.SIZE + position(fingerprint, level, this.levels[level + 1] - start);
+      final int word = (int) (position >>> 6);
+      final long bit = 1L << position;
+      final long bits = this.bits[word];
+      if ((bits & bit) != 0) {
+        return this.ranks[word] + Long.bitCount(bits & bit - 1);
+      }
+    }
+    return -1;
+  }
+
+  private static PerfectHashKeys build(final boolean strings, final long[] fingerprints) {
+    final boolean parallel = fingerprints.length >= PARALLEL_THRESHOLD;
+    Arrays.parallelSort(fingerprints);
+    final long[] unique = unique(fingerprints);
+    long[] remaining = unique;
+    final List<long[]> levelBits = new ArrayList<>();
+    while (remaining.length > 0) {
+      final int level = levelBits.size();
+      if (level == MAXIMUM_LEVELS) {
+        throw new IllegalStateException("Could not find a perfect hash function");
+      }
+      final int words = (int) Math.max(1, ((long) remaining.length * GAMMA + Long.SIZE - 1) / Long.SIZE);
+      final long[] seen = new long[words];
+      final long[] collided = new long[words];
+      stream(remaining, parallel).forEach(fingerprint -> {
+        final long position = position(fingerprint, level, words);
+        final long bit = 1L << position;
+        final long previous = (long) WORDS.getAndBitwiseOr(seen, (int) (position >>> 6), bit);
+        if ((previous & bit) != 0) {
+          WORDS.getAndBitwiseOr(collided, (int) (position >>> 6), bit);
+        }
+      });
+      ints(words, parallel).forEach(i -> seen[i] &= ~collided[i]);
+      // fingerprints which collided try again in the next level
+      remaining = stream(remaining, parallel).filter(fingerprint -> {
+        final long position = position(fingerprint, level, words);
+        return (collided[(int) (position >>> 6)] & 1L << position) != 0;
+      }).toArray();
+      levelBits.add(seen);
+    }
+    final int[] levels = new int[levelBits.isEmpty() ? 0 : levelBits.size() + 1];
+    for (int i = 0; i < levelBits.size(); i++) {
+      levels[i + 1] = levels[i] + levelBits.get(i).length;
+    }
+    final long[] bits = new long[levels.length == 0 ? 0 : levels[levels.length - 1]];
+    for (int i = 0; i < levelBits.size(); i++) {
+      System.arraycopy(levelBits.get(i), 0, bits, levels[i], levelBits.get(i).length);
+    }
+    final PerfectHashKeys keys = new PerfectHashKeys(strings, levels, bits, new long[unique.length]);
+    stream(unique, parallel).forEach(fingerprint -> keys.fingerprints[keys.index(fingerprint)] = fingerprint);
+    return keys;
+  }
+
+  // the distinct values of a sorted array
+  private static long[] unique(final long[] sorted) {
+    int size = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[size++] = sorted[i];
+      }
+    }
+    return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+  }
+
+  private static LongStream stream(final long[] values, final boolean parallel) {
+    final LongStream stream = Arrays.stream(values);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  private static IntStream ints(final int size, final boolean parallel) {
+    final IntStream stream = IntStream.range(0, size);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  // the position of a fingerprint within a level of the given number of words
+  private static long position(final long fingerprint, final int level, final int words) {
+    final long hash = Fingerprints.mix(fingerprint + level * PHI);
+    return Math.multiplyHigh(hash >>> 1, (long) words * Long.SIZE << 1);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.range;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.typed.ClassTypedFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that allows queries whose value lies within a range, and denies all other queries of its type.
+ *
+ * <p>Range filters of the same query type and the same {@code key} function instance can be indexed together by a
+ * {@link RangeIndexFilter}.</p>
+ *
+ * @param queryType the type of queries
+ * @param key the function extracting the value of a query
+ * @param min the smallest value in the range
+ * @param max the largest value in the range, which is smaller than {@code min} if the range is empty
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public record RangeFilter<Q extends FilterQuery>(Class<Q> queryType, ToLongFunction<? super Q> key, long min, long max) implements ClassTypedFilter<Q>, StronglyTypedFilter<Q> {
+  /**
+   * Creates a filter that allows queries whose value is greater than {@code value}.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the value of a query
+   * @param value the value
+   * @param <Q> the query type
+   * @return a range filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> RangeFilter<Q> above(final Class<Q> queryType, final ToLongFunction<? super Q> key, final long value) {
+    return value == Long.MAX_VALUE
+      ? new RangeFilter<>(queryType, key, Long.MAX_VALUE, Long.MIN_VALUE)
+      : new RangeFilter<>(queryType, key, value + 1, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a filter that allows queries whose value is less than {@code value}.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the value of a query
+   * @param value the value
+   * @param <Q> the query type
+   * @return a range filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> RangeFilter<Q> below(final Class<Q> queryType, final ToLongFunction<? super Q> key, final long value) {
+    return value == Long.MIN_VALUE
+      ? new RangeFilter<>(queryType, key, Long.MAX_VALUE, Long.MIN_VALUE)
+      : new RangeFilter<>(queryType, key, Long.MIN_VALUE, value - 1);
+  }
+
+  /**
+   * Creates a filter that allows queries whose value is between {@code min} and {@code max}, inclusive.
+   *
+   * @param queryType the type of queries
+   * @param key the function extracting the value of a query
+   * @param min the smallest value in the range
+   * @param max the largest value in the range
+   * @param <Q> the query type
+   * @return a range filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> RangeFilter<Q> between(final Class<Q> queryType, final ToLongFunction<? super Q> key, final long min, final long max) {
+    return new RangeFilter<>(queryType, key, min, max);
+  }
+
+  /**
+   * Tests if a value lies within this range.
+   *
+   * @param value the value
+   * @return {@code true} if the value lies within this range
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public boolean contains(final long value) {
+    return value >= this.min && value <= this.max;
+  }
+
+  @Override
+  public boolean queryResponse(final Q query) {
+    return this.contains(this.key.applyAsLong(query));
+  }
+}
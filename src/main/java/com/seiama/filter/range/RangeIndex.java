@@ -0,0 +1,142 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.range;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import org.jspecify.annotations.NullMarked;
+
+// The ranges of a single query type and key, indexed twice: merged into disjoint intervals to find whether any range
+// contains a value by binary search, and sorted by their smallest value in an implicit tree, where each node holds the
+// largest value of its subtree, to find every range which contains a value.
+@NullMarked
+final class RangeIndex {
+  final Class<? extends FilterQuery> queryType;
+  final ToLongFunction<Object> key;
+  private final long[] mins;
+  private final long[] maxs;
+  private final Filter[] sources;
+  private final long[] subtreeMaxs;
+  private final long[] coverMins;
+  private final long[] coverMaxs;
+  private final int size;
+
+  @SuppressWarnings("unchecked")
+  RangeIndex(final Class<? extends FilterQuery> queryType, final ToLongFunction<?> key, final List<Entry> entries) {
+    this.queryType = queryType;
+    this.key = (ToLongFunction<Object>) key;
+    this.size = entries.size();
+    // empty ranges never contain a value, but still deny
+    final Entry[] sorted = entries.stream()
+      .filter(entry -> entry.min <= entry.max)
+      .sorted(Comparator.comparingLong(Entry::min))
+      .toArray(Entry[]::new);
+    final int size = sorted.length;
+    this.mins = new long[size];
+    this.maxs = new long[size];
+    this.sources = new Filter[size];
+    for (int i = 0; i < size; i++) {
+      this.mins[i] = sorted[i].min;
+      this.maxs[i] = sorted[i].max;
+      this.sources[i] = sorted[i].source;
+    }
+    this.subtreeMaxs = new long[size];
+    this.buildTree(0, size);
+    final long[] coverMins = new long[size];
+    final long[] coverMaxs = new long[size];
+    int covers = 0;
+    for (int i = 0; i < size; i++) {
+      if (covers > 0 && (coverMaxs[covers - 1] == Long.MAX_VALUE || this.mins[i] <= coverMaxs[covers - 1] + 1)) {
+        coverMaxs[covers - 1] = Math.max(coverMaxs[covers - 1], this.maxs[i]);
+      } else {
+        coverMins[covers] = this.mins[i];
+        coverMaxs[covers] = this.maxs[i];
+        covers++;
+      }
+    }
+    this.coverMins = Arrays.copyOf(coverMins, covers);
+    this.coverMaxs = Arrays.copyOf(coverMaxs, covers);
+  }
+
+  private long buildTree(final int from, final int to) {
+    if (from >= to) {
+      return Long.MIN_VALUE;
+    }
+    final int middle = from + to >>> 1;
+    final long max = Math.max(this.maxs[middle], Math.max(this.buildTree(from, middle), this.buildTree(middle + 1, to)));
+    this.subtreeMaxs[middle] = max;
+    return max;
+  }
+
+  long value(final FilterQuery query) {
+    return this.key.applyAsLong(query);
+  }
+
+  boolean contains(final long value) {
+    // the last interval starting at or before the value
+    int low = 0;
+    int high = this.coverMins.length - 1;
+    while (low <= high) {
+      final int middle = low + high >>> 1;
+      if (this.coverMins[middle] <= value) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high >= 0 && value <= this.coverMaxs[high];
+  }
+
+  void collect(final long value, final List<Filter> matching) {
+    this.collect(0, this.mins.length, value, matching);
+  }
+
+  private void collect(final int from, final int to, final long value, final List<Filter> matching) {
+    if (from >= to) {
+      return;
+    }
+    final int middle = from + to >>> 1;
+    if (this.subtreeMaxs[middle] < value) {
+      return;
+    }
+    this.collect(from, middle, value, matching);
+    if (this.mins[middle] <= value) {
+      if (this.maxs[middle] >= value) {
+        matching.add(this.sources[middle]);
+      }
+      this.collect(middle + 1, to, value, matching);
+    }
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  record Entry(long min, long max, Filter source) {
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.range;
+
+import com.seiama.filter.AllFilter;
+import com.seiama.filter.AnyFilter;
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A filter that responds like an {@link AnyFilter}, with its range children indexed.
+ *
+ * <p>Children which are {@link RangeFilter range filters}, or {@link AllFilter all filters} of range filters of the
+ * same query type and key, such as {@code all(above(a), below(b))}, are indexed: a query checks whether any of them
+ * contains its value in {@code O(log n)} time. Range filters are only indexed together if they share the same
+ * {@code key} function instance. All other children are queried in order.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class RangeIndexFilter implements Filter {
+  private final RangeIndex[] indexes;
+  private final List<? extends Filter> filters;
+
+  private RangeIndexFilter(final RangeIndex[] indexes, final List<? extends Filter> filters) {
+    this.indexes = indexes;
+    this.filters = filters;
+  }
+
+  /**
+   * Creates a filter that responds like {@code Filter.any(filters)}, with its range children indexed.
+   *
+   * @param filters the filters
+   * @return a range index filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static RangeIndexFilter any(final Filter... filters) {
+    return any(Arrays.asList(filters));
+  }
+
+  /**
+   * Creates a filter that responds like {@code Filter.any(filters)}, with its range children indexed.
+   *
+   * @param filters the filters
+   * @return a range index filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static RangeIndexFilter any(final List<? extends Filter> filters) {
+    final Map<Group, List<RangeIndex.Entry>> groups = new LinkedHashMap<>();
+    final List<Filter> remaining = new ArrayList<>();
+    for (final Filter filter : filters) {
+      final @Nullable RangeFilter<?> range = range(filter);
+      if (range != null) {
+        groups.computeIfAbsent(new Group(range.queryType(), range.key()), group -> new ArrayList<>())
+          .add(new RangeIndex.Entry(range.min(), range.max(), filter));
+      } else {
+        remaining.add(filter);
+      }
+    }
+    final RangeIndex[] indexes = groups.entrySet().stream()
+      .map(entry -> new RangeIndex(entry.getKey().queryType(), entry.getKey().key(), entry.getValue()))
+      .toArray(RangeIndex[]::new);
+    return new RangeIndexFilter(indexes, List.copyOf(remaining));
+  }
+
+  /**
+   * Creates a filter that responds like {@code filter}, with its range children indexed.
+   *
+   * @param filter the filter
+   * @return a range index filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public static RangeIndexFilter of(final AnyFilter filter) {
+    return any(filter.filters());
+  }
+
+  // a range filter, or the intersection of the range filters of an all filter
+  private static @Nullable RangeFilter<?> range(final Filter filter) {
+    if (filter instanceof final RangeFilter<?> range) {
+      return range;
+    } else if (filter instanceof final AllFilter all && !all.filters().isEmpty()) {
+      @Nullable RangeFilter<?> intersection = null;
+      for (final Filter child : all.filters()) {
+        if (!(child instanceof final RangeFilter<?> range)) {
+          return null;
+        } else if (intersection == null) {
+          intersection = range;
+        } else if (range.queryType() != intersection.queryType() || range.key() != intersection.key()) {
+          return null;
+        } else {
+          intersection = intersect(intersection, range);
+        }
+      }
+      return intersection;
+    }
+    return null;
+  }
+
+  private static <Q extends FilterQuery> RangeFilter<Q> intersect(final RangeFilter<Q> range, final RangeFilter<?> other) {
+    return new RangeFilter<>(range.queryType(), range.key(), Math.max(range.min(), other.min()), Math.min(range.max(), other.max()));
+  }
+
+  /**
+   * Gets the children that are not indexed, which are queried in order.
+   *
+   * @return the children that are not indexed
+   * @since 1.0.0
+   */
+  public List<? extends Filter> filters() {
+    return this.filters;
+  }
+
+  /**
+   * Gets the number of indexed children.
+   *
+   * @return the number of indexed children
+   * @since 1.0.0
+   */
+  public int indexed() {
+    int indexed = 0;
+    for (final RangeIndex index : this.indexes) {
+      indexed += index.size();
+    }
+    return indexed;
+  }
+
+  /**
+   * Finds the indexed children whose range contains the value of a query.
+   *
+   * <p>This takes {@code O(log n + k)} time for {@code k} matching children of a single query type and key.</p>
+   *
+   * @param query the query
+   * @return the indexed children that allow the query
+   * @since 1.0.0
+   */
+  public List<Filter> matching(final FilterQuery query) {
+    final List<Filter> matching = new ArrayList<>();
+    for (final RangeIndex index : this.indexes) {
+      if (index.queryType.isInstance(query)) {
+        index.collect(index.value(query), matching);
+      }
+    }
+    return matching;
+  }
+
+  @Override
+  @SuppressWarnings("ForLoopReplaceableByForEach")
+  public FilterResponse query(final FilterQuery query) {
+    FilterResponse result = FilterResponse.ABSTAIN;
+    final RangeIndex[] indexes = this.indexes;
+    for (int i = 0; i < indexes.length; i++) {
+      final RangeIndex index = indexes[i];
+      if (index.queryType.isInstance(query)) {
+        if (index.contains(index.value(query))) {
+          return FilterResponse.ALLOW;
+        }
+        result = FilterResponse.DENY;
+      }
+    }
+    final List<? extends Filter> filters = this.filters;
+    for (int i = 0, size = filters.size(); i < size; i++) {
+      final FilterResponse response = filters.get(i).query(query);
+      if (response == FilterResponse.ALLOW) {
+        return FilterResponse.ALLOW;
+      } else if (response == FilterResponse.DENY) {
+        result = FilterResponse.DENY;
+      }
+    }
+    return result;
+  }
+
+  private record Group(Class<? extends FilterQuery> queryType, ToLongFunction<?> key) {
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// A trie of patterns, with the failure links of an Aho-Corasick automaton if it matches substrings.
+//
+// States are numbered in breadth-first order, with the root as state 0. The transitions of a state are stored in
+// labels and targets between offsets[state] and offsets[state + 1], sorted by label.
+@NullMarked
+final class CharAutomaton {
+  private static final int NONE = -1;
+  private final int[] offsets;
+  private final char[] labels;
+  private final int[] targets;
+  // the pattern ending at a state, or NONE
+  private final int[] patterns;
+  // whether a pattern ends at a state, or at a state reached by following its failure links
+  private final boolean[] accepting;
+  // the longest proper suffix of a state which is also a state, empty if the automaton only matches prefixes
+  private final int[] failures;
+  // the nearest state reached by following failure links at which a pattern ends or NONE, empty if the automaton only
+  // matches prefixes
+  private final int[] outputs;
+
+  private CharAutomaton(final int[] offsets, final char[] labels, final int[] targets, final int[] patterns, final boolean[] accepting, final int[] failures, final int[] outputs) {
+    this.offsets = offsets;
+    this.labels = labels;
+    this.targets = targets;
+    this.patterns = patterns;
+    this.accepting = accepting;
+    this.failures = failures;
+    this.outputs = outputs;
+  }
+
+  static CharAutomaton build(final List<String> patterns, final boolean substrings) {
+    // build a trie of linked nodes first, then lay it out in breadth-first order
+    final List<TreeMap<Character, Integer>> nodes = new ArrayList<>();
+    final List<Integer> nodePatterns = new ArrayList<>();
+    nodes.add(new TreeMap<>());
+    nodePatterns.add(NONE);
+    for (int i = 0, size = patterns.size(); i < size; i++) {
+      final String pattern = patterns.get(i);
+      int node = 0;
+      for (int j = 0, length = pattern.length(); j < length; j++) {
+        final @Nullable Integer next = nodes.get(node).get(pattern.charAt(j));
+        if (next != null) {
+          node = next;
+        } else {
+          nodes.get(node).put(pattern.charAt(j), nodes.size());
+          node = nodes.size();
+          nodes.add(new TreeMap<>());
+          nodePatterns.add(NONE);
+        }
+      }
+      if (nodePatterns.get(node) == NONE) {
+        nodePatterns.set(node, i);
+      }
+    }
+    final int states = nodes.size();
+    final int[] order = new int[states];
+    final int[] state = new int[states];
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      for (final int child : nodes.get(order[head]).values()) {
+        state[child] = tail;
+        order[tail++] = child;
+      }
+    }
+    final int[] offsets = new int[states + 1];
+    final char[] labels = new char[states - 1];
+    final int[] targets = new int[states - 1];
+    final int[] statePatterns = new int[states];
+    int transition = 0;
+    for (int i = 0; i < states; i++) {
+      offsets[i] = transition;
+      statePatterns[i] = nodePatterns.get(order[i]);
+      for (final Map.Entry<Character, Integer> entry : nodes.get(order[i]).entrySet()) {
+        labels[transition] = entry.getKey();
+        targets[transition] = state[entry.getValue()];
+        transition++;
+      }
+    }
+    offsets[states] = transition;
+    final boolean[] accepting = new boolean[states];
+    for (int i = 0; i < states; i++) {
+      accepting[i] = statePatterns[i] != NONE;
+    }
+    final CharAutomaton trie = new CharAutomaton(offsets, labels, targets, statePatterns, accepting, new int[0], new int[0]);
+    if (!substrings) {
+      return trie;
+    }
+    final int[] failures = new int[states];
+    final int[] outputs = new int[states];
+    outputs[0] = NONE;
+    // a parent precedes its children in breadth-first order, so its failure link is known before theirs
+    for (int parent = 0; parent < states; parent++) {
+      for (int i = offsets[parent]; i < offsets[parent + 1]; i++) {
+        final int child = targets[i];
+        int failure = 0;
+        if (parent != 0) {
+          int candidate = failures[parent];
+          int next = trie.next(candidate, labels[i]);
+          while (next == NONE && candidate != 0) {
+            candidate = failures[candidate];
+            next = trie.next(candidate, labels[i]);
+          }
+          failure = next == NONE ? 0 : next;
+        }
+        failures[child] = failure;
+        outputs[child] = statePatterns[failures[child]] != NONE ? failures[child] : outputs[failures[child]];
+        accepting[child] |= accepting[failures[child]];
+      }
+    }
+    return new CharAutomaton(offsets, labels, targets, statePatterns, accepting, failures, outputs);
+  }
+
+  private int next(final int state, final char label) {
+    int low = this.offsets[state];
+    int high = this.offsets[state + 1] - 1;
+    while (low <= high) {
+      final int middle = low + high >>> 1;
+      final char candidate = this.labels[middle];
+      if (candidate < label) {
+        low = middle + 1;
+      } else if (candidate > label) {
+        high = middle - 1;
+      } else {
+        return this.targets[middle];
+      }
+    }
+    return NONE;
+  }
+
+  // the state reached from a state by a label, following failure links while there is no transition
+  private int step(final int state, final char label) {
+    final int[] failures = this.failures;
+    int current = state;
+    while (true) {
+      final int next = this.next(current, label);
+      if (next != NONE) {
+        return next;
+      } else if (current == 0) {
+        return 0;
+      }
+      current = failures[current];
+    }
+  }
+
+  boolean matchesPrefix(final CharSequence text) {
+    int state = 0;
+    for (int i = 0, length = text.length(); i < length && !this.accepting[state]; i++) {
+      state = this.next(state, text.charAt(i));
+      if (state == NONE) {
+        return false;
+      }
+    }
+    return this.accepting[state];
+  }
+
+  boolean matchesSubstring(final CharSequence text) {
+    int state = 0;
+    for (int i = 0, length = text.length(); i < length && !this.accepting[state]; i++) {
+      state = this.step(state, text.charAt(i));
+    }
+    return this.accepting[state];
+  }
+
+  void prefixMatches(final CharSequence text, final BitSet matches) {
+    int state = 0;
+    for (int i = 0, length = text.length(); state != NONE; i++) {
+      if (this.patterns[state] != NONE) {
+        matches.set(this.patterns[state]);
+      }
+      state = i == length ? NONE : this.next(state, text.charAt(i));
+    }
+  }
+
+  void substringMatches(final CharSequence text, final BitSet matches) {
+    final int[] outputs = this.outputs;
+    int state = 0;
+    for (int i = 0, length = text.length(); ; i++) {
+      for (int output = this.patterns[state] != NONE ? state : outputs[state]; output != NONE; output = outputs[output]) {
+        matches.set(this.patterns[output]);
+      }
+      if (i == length) {
+        return;
+      }
+      state = this.step(state, text.charAt(i));
+    }
+  }
+
+  int states() {
+    return this.patterns.length;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.typed.ClassTypedFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that allows queries whose text starts with any of a set of prefixes, and denies all other queries of its
+ * type.
+ *
+ * <p>The prefixes are compiled into a trie, so a query scans its text once regardless of the number of
+ * prefixes.</p>
+ *
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public final class PrefixFilter<Q extends FilterQuery> implements ClassTypedFilter<Q>, StronglyTypedFilter<Q> {
+  private final Class<Q> queryType;
+  private final Function<? super Q, ? extends CharSequence> text;
+  private final TextPatterns prefixes;
+
+  private PrefixFilter(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final TextPatterns prefixes) {
+    this.queryType = queryType;
+    this.text = text;
+    this.prefixes = prefixes;
+  }
+
+  /**
+   * Creates a prefix filter.
+   *
+   * @param queryType the type of queries
+   * @param text the function extracting the text of a query
+   * @param prefixes the prefixes
+   * @param <Q> the query type
+   * @return a prefix filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> PrefixFilter<Q> of(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final Collection<? extends CharSequence> prefixes) {
+    return new PrefixFilter<>(queryType, text, TextPatterns.of(prefixes, false));
+  }
+
+  /**
+   * Gets the prefixes.
+   *
+   * @return the prefixes
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<String> prefixes() {
+    return this.prefixes.patterns;
+  }
+
+  /**
+   * Tests if a text starts with any of the prefixes.
+   *
+   * @param text the text
+   * @return {@code true} if the text starts with any of the prefixes
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public boolean matches(final CharSequence text) {
+    return this.prefixes.matches(text);
+  }
+
+  /**
+   * Finds the prefixes that a text starts with.
+   *
+   * @param text the text
+   * @return the matching prefixes, in the order they were given
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<String> matching(final CharSequence text) {
+    return this.prefixes.matching(text);
+  }
+
+  @Override
+  public Class<Q> queryType() {
+    return this.queryType;
+  }
+
+  @Override
+  public boolean queryResponse(final Q query) {
+    return this.prefixes.matches(this.text.apply(query));
+  }
+
+  @Override
+  public String toString() {
+    return this.prefixes.toString("PrefixFilter", this.queryType);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import java.util.regex.Pattern;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// Finds a literal which every match of a pattern contains, so that a pattern only needs to be run on texts which
+// contain its literal. The analysis is conservative: only runs of literal characters outside of groups and character
+// classes are considered, and any pattern with alternation, or with flags which change how characters match, has no
+// literal.
+@NullMarked
+final class RegexLiterals {
+  private static final int UNSUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.COMMENTS | Pattern.CANON_EQ;
+
+  private RegexLiterals() {
+  }
+
+  static @Nullable String required(final Pattern pattern) {
+    final String regex = pattern.pattern();
+    if ((pattern.flags() & Pattern.LITERAL) != 0) {
+      return regex.isEmpty() || (pattern.flags() & UNSUPPORTED_FLAGS) != 0 ? null : regex;
+    } else if ((pattern.flags() & UNSUPPORTED_FLAGS) != 0) {
+      return null;
+    }
+    String longest = "";
+    final StringBuilder run = new StringBuilder();
+    int depth = 0;
+    int i = 0;
+    final int length = regex.length();
+    while (i < length) {
+      final char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 == length) {
+          return null;
+        }
+        final char escaped = regex.charAt(i + 1);
+        if (escaped == 'Q') {
+          final int end = regex.indexOf("\\E", i + 2);
+          final String quoted = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+          i = end < 0 ? length : end + 2;
+          if (depth == 0) {
+            run.append(quoted);
+            // a quantifier applies to the last quoted character only
+            longest = quantify(regex, i, run, longest);
+          }
+          continue;
+        } else if (!Character.isLetterOrDigit(escaped)) {
+          if (depth == 0) {
+            run.append(escaped);
+          }
+          i += 2;
+        } else {
+          // a character class, a boundary, a back reference or an escaped character, whose arguments are skipped
+          longest = longest(run, longest);
+          i = skipEscape(regex, i + 1);
+        }
+      } else if (c == '[') {
+        i = skipClass(regex, i);
+        if (i < 0) {
+          return null;
+        }
+        longest = longest(run, longest);
+        continue;
+      } else if (c == '(') {
+        if (regex.startsWith("(?", i) && i + 2 < length && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+          // inline flags, which may change how characters match
+          return null;
+        }
+        depth++;
+        longest = longest(run, longest);
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (c == '|') {
+        if (depth == 0) {
+          return null;
+        }
+        i++;
+      } else if (c == '.' || c == '^' || c == '$') {
+        longest = longest(run, longest);
+        i++;
+      } else if (c == '?' || c == '*' || c == '+' || c == '{') {
+        // a quantifier following something other than a literal character, whose run has already ended
+        i = skipQuantifier(regex, i);
+        if (i < 0) {
+          return null;
+        }
+      } else {
+        if (depth == 0) {
+          run.append(c);
+        }
+        i++;
+      }
+      if (depth == 0 && !run.isEmpty()) {
+        longest = quantify(regex, i, run, longest);
+      }
+    }
+    longest = longest(run, longest);
+    return longest.isEmpty() ? null : longest;
+  }
+
+  // ends the run if the last literal character is followed by a quantifier, which makes it optional or repeated
+  private static String quantify(final String regex, final int index, final StringBuilder run, final String longest) {
+    if (index >= regex.length() || run.isEmpty()) {
+      return longest;
+    }
+    final char next = regex.charAt(index);
+    if (next == '+') {
+      return longest(run, longest);
+    } else if (next == '?' || next == '*' || next == '{') {
+      // the quantifier applies to the whole last code point, which may be a surrogate pair
+      final int last = run.length() - 1;
+      final boolean pair = last > 0 && Character.isLowSurrogate(run.charAt(last)) && Character.isHighSurrogate(run.charAt(last - 1));
+      run.setLength(pair ? last - 1 : last);
+      return longest(run, longest);
+    }
+    return longest;
+  }
+
+  private static String longest(final StringBuilder run, final String longest) {
+    final String result = run.length() > longest.length() ? run.toString() : longest;
+    run.setLength(0);
+    return result;
+  }
+
+  // the index after the arguments of the escape whose letter or digit is at an index
+  private static int skipEscape(final String regex, final int index) {
+    final char escaped = regex.charAt(index);
+    final int next = index + 1;
+    final boolean braced = next < regex.length() && regex.charAt(next) == '{';
+    return switch (escaped) {
+      case 'x' -> braced ? regex.indexOf('}', next) + 1 : next + 2;
+      case 'u' -> next + 4;
+      case 'c' -> next + 1;
+      case 'p', 'P' -> braced ? regex.indexOf('}', next) + 1 : next + 1;
+      case 'N' -> regex.indexOf('}', next) + 1;
+      case 'k' -> regex.indexOf('>', next) + 1;
+      default -> {
+        int end = next;
+        while (Character.isDigit(escaped) && end < regex.length() && Character.isDigit(regex.charAt(end))) {
+          end++;
+        }
+        yield end;
+      }
+    };
+  }
+
+  private static int skipQuantifier(final String regex, final int index) {
+    if (regex.charAt(index) == '{') {
+      final int end = regex.indexOf('}', index);
+      return end < 0 ? -1 : end + 1;
+    }
+    return index + 1;
+  }
+
+  // the index after the character class starting at an index, or -1 if it never ends
+  private static int skipClass(final String regex, final int index) {
+    int depth = 0;
+    int i = index;
+    while (i < regex.length()) {
+      final char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+          // quoted text, which may contain brackets of its own
+          final int end = regex.indexOf("\\E", i + 2);
+          if (end < 0) {
+            return -1;
+          }
+          i = end + 2;
+        } else {
+          i += 2;
+        }
+        continue;
+      } else if (c == '[') {
+        depth++;
+        i++;
+        // a closing bracket right after the opening bracket, or its negation, is a literal
+        if (i < regex.length() && regex.charAt(i) == '^') {
+          i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+          i++;
+        }
+        continue;
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+}
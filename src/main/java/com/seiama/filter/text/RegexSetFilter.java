@@ -0,0 +1,222 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.typed.ClassTypedFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A filter that allows queries whose text matches any of a set of patterns, and denies all other queries of its type.
+ *
+ * <p>A literal which every match of a pattern must contain is extracted from each pattern where possible. All
+ * literals are found in a single scan of the text, and a pattern is only run if its literal was found. Patterns
+ * without such a literal, such as patterns with alternation or case-insensitive patterns, are always run.</p>
+ *
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public final class RegexSetFilter<Q extends FilterQuery> implements ClassTypedFilter<Q>, StronglyTypedFilter<Q> {
+  private final Class<Q> queryType;
+  private final Function<? super Q, ? extends CharSequence> text;
+  private final List<Pattern> patterns;
+  private final boolean entire;
+  private final CharAutomaton literals;
+  // the patterns which contain each literal, and the patterns without a literal
+  private final int[][] literalPatterns;
+  private final int[] unfiltered;
+  // the literals found in a text and the patterns to run on it, reused by every query on a thread
+  private final ThreadLocal<BitSet> foundLiterals = ThreadLocal.withInitial(BitSet::new);
+  private final ThreadLocal<BitSet> candidates = ThreadLocal.withInitial(BitSet::new);
+
+  private RegexSetFilter(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final List<Pattern> patterns, final boolean entire) {
+    this.queryType = queryType;
+    this.text = text;
+    this.patterns = patterns;
+    this.entire = entire;
+    final Map<String, List<Integer>> literals = new LinkedHashMap<>();
+    final List<Integer> unfiltered = new ArrayList<>();
+    for (int i = 0, size = patterns.size(); i < size; i++) {
+      final @Nullable String literal = RegexLiterals.required(patterns.get(i));
+      if (literal != null) {
+        literals.computeIfAbsent(literal, key -> new ArrayList<>()).add(i);
+      } else {
+        unfiltered.add(i);
+      }
+    }
+    this.literals = CharAutomaton.build(List.copyOf(literals.keySet()), true);
+    this.literalPatterns = literals.values().stream()
+      .map(indexes -> indexes.stream().mapToInt(Integer::intValue).toArray())
+      .toArray(int[][]::new);
+    this.unfiltered = unfiltered.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Creates a regex set filter that allows queries whose text contains a match of any of the patterns.
+   *
+   * @param queryType the type of queries
+   * @param text the function extracting the text of a query
+   * @param patterns the patterns
+   * @param <Q> the query type
+   * @return a regex set filter
+   * @see java.util.regex.Matcher#find()
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> RegexSetFilter<Q> find(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final Collection<Pattern> patterns) {
+    return new RegexSetFilter<>(queryType, text, List.copyOf(patterns), false);
+  }
+
+  /**
+   * Creates a regex set filter that allows queries whose entire text matches any of the patterns.
+   *
+   * @param queryType the type of queries
+   * @param text the function extracting the text of a query
+   * @param patterns the patterns
+   * @param <Q> the query type
+   * @return a regex set filter
+   * @see java.util.regex.Matcher#matches()
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> RegexSetFilter<Q> matchEntire(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final Collection<Pattern> patterns) {
+    return new RegexSetFilter<>(queryType, text, List.copyOf(patterns), true);
+  }
+
+  /**
+   * Gets the patterns.
+   *
+   * @return the patterns
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<Pattern> patterns() {
+    return this.patterns;
+  }
+
+  /**
+   * Gets the number of patterns which are only run if their literal is found in a text.
+   *
+   * @return the number of patterns with a literal
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public int prefiltered() {
+    return this.patterns.size() - this.unfiltered.length;
+  }
+
+  /**
+   * Tests if a text matches any of the patterns.
+   *
+   * @param text the text
+   * @return {@code true} if the text matches any of the patterns
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public boolean matches(final CharSequence text) {
+    for (final int pattern : this.unfiltered) {
+      if (this.matches(pattern, text)) {
+        return true;
+      }
+    }
+    if (this.literalPatterns.length == 0) {
+      return false;
+    }
+    final BitSet literals = this.foundLiterals.get();
+    literals.clear();
+    this.literals.substringMatches(text, literals);
+    for (int i = literals.nextSetBit(0); i >= 0; i = literals.nextSetBit(i + 1)) {
+      for (final int pattern : this.literalPatterns[i]) {
+        if (this.matches(pattern, text)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the patterns that a text matches.
+   *
+   * @param text the text
+   * @return the matching patterns, in the order they were given
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<Pattern> matching(final CharSequence text) {
+    final BitSet candidates = this.candidates.get();
+    candidates.clear();
+    for (final int pattern : this.unfiltered) {
+      candidates.set(pattern);
+    }
+    final BitSet literals = this.foundLiterals.get();
+    literals.clear();
+    this.literals.substringMatches(text, literals);
+    for (int i = literals.nextSetBit(0); i >= 0; i = literals.nextSetBit(i + 1)) {
+      for (final int pattern : this.literalPatterns[i]) {
+        candidates.set(pattern);
+      }
+    }
+    final List<Pattern> matching = new ArrayList<>();
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (this.matches(i, text)) {
+        matching.add(this.patterns.get(i));
+      }
+    }
+    return matching;
+  }
+
+  private boolean matches(final int pattern, final CharSequence text) {
+    return this.entire
+      ? this.patterns.get(pattern).matcher(text).matches()
+      : this.patterns.get(pattern).matcher(text).find();
+  }
+
+  @Override
+  public Class<Q> queryType() {
+    return this.queryType;
+  }
+
+  @Override
+  public boolean queryResponse(final Q query) {
+    return this.matches(this.text.apply(query));
+  }
+
+  @Override
+  public String toString() {
+    return "RegexSetFilter[queryType=" + this.queryType.getName() + ", patterns=" + this.patterns.size() + ", prefiltered=" + this.prefiltered() + "]";
+  }
+}
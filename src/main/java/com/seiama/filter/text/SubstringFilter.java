@@ -0,0 +1,121 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.typed.ClassTypedFilter;
+import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter that allows queries whose text contains any of a set of substrings, and denies all other queries of its
+ * type.
+ *
+ * <p>The substrings are compiled into an Aho-Corasick automaton, so a query scans its text once regardless of the number of
+ * substrings.</p>
+ *
+ * @param <Q> the query type
+ * @since 1.0.0
+ */
+@NullMarked
+public final class SubstringFilter<Q extends FilterQuery> implements ClassTypedFilter<Q>, StronglyTypedFilter<Q> {
+  private final Class<Q> queryType;
+  private final Function<? super Q, ? extends CharSequence> text;
+  private final TextPatterns substrings;
+
+  private SubstringFilter(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final TextPatterns substrings) {
+    this.queryType = queryType;
+    this.text = text;
+    this.substrings = substrings;
+  }
+
+  /**
+   * Creates a substring filter.
+   *
+   * @param queryType the type of queries
+   * @param text the function extracting the text of a query
+   * @param substrings the substrings
+   * @param <Q> the query type
+   * @return a substring filter
+   * @since 1.0.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <Q extends FilterQuery> SubstringFilter<Q> of(final Class<Q> queryType, final Function<? super Q, ? extends CharSequence> text, final Collection<? extends CharSequence> substrings) {
+    return new SubstringFilter<>(queryType, text, TextPatterns.of(substrings, true));
+  }
+
+  /**
+   * Gets the substrings.
+   *
+   * @return the substrings
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<String> substrings() {
+    return this.substrings.patterns;
+  }
+
+  /**
+   * Tests if a text contains any of the substrings.
+   *
+   * @param text the text
+   * @return {@code true} if the text contains any of the substrings
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public boolean matches(final CharSequence text) {
+    return this.substrings.matches(text);
+  }
+
+  /**
+   * Finds the substrings that a text contains.
+   *
+   * @param text the text
+   * @return the matching substrings, in the order they were given
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  public List<String> matching(final CharSequence text) {
+    return this.substrings.matching(text);
+  }
+
+  @Override
+  public Class<Q> queryType() {
+    return this.queryType;
+  }
+
+  @Override
+  public boolean queryResponse(final Q query) {
+    return this.substrings.matches(this.text.apply(query));
+  }
+
+  @Override
+  public String toString() {
+    return this.substrings.toString("SubstringFilter", this.queryType);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+
+// The distinct patterns of a prefix or substring filter, in the order they were given, and the automaton matching
+// them at the start of a text or anywhere in it.
+@NullMarked
+final class TextPatterns {
+  final List<String> patterns;
+  private final boolean substrings;
+  private final CharAutomaton automaton;
+
+  private TextPatterns(final List<String> patterns, final boolean substrings) {
+    this.patterns = patterns;
+    this.substrings = substrings;
+    this.automaton = CharAutomaton.build(patterns, substrings);
+  }
+
+  static TextPatterns of(final Collection<? extends CharSequence> patterns, final boolean substrings) {
+    final LinkedHashSet<String> distinct = new LinkedHashSet<>();
+    for (final CharSequence pattern : patterns) {
+      distinct.add(pattern.toString());
+    }
+    return new TextPatterns(List.copyOf(distinct), substrings);
+  }
+
+  boolean matches(final CharSequence text) {
+    return this.substrings ? this.automaton.matchesSubstring(text) : this.automaton.matchesPrefix(text);
+  }
+
+  List<String> matching(final CharSequence text) {
+    final BitSet matches = new BitSet(this.patterns.size());
+    if (this.substrings) {
+      this.automaton.substringMatches(text, matches);
+    } else {
+      this.automaton.prefixMatches(text, matches);
+    }
+    final List<String> matching = new ArrayList<>(matches.cardinality());
+    for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+      matching.add(this.patterns.get(i));
+    }
+    return matching;
+  }
+
+  String toString(final String filter, final Class<?> queryType) {
+    return filter + "[queryType=" + queryType.getName() + ", " + (this.substrings ? "substrings" : "prefixes") + "=" + this.patterns.size() + ", states=" + this.automaton.states() + "]";
+  }
+}
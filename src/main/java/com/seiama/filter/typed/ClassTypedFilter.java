@@ -0,0 +1,57 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.typed;
+
+import com.seiama.filter.FilterQuery;
+import org.jetbrains.annotations.ApiStatus.NonExtendable;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A filter which accepts queries that are instances of {@link #queryType()}.
+ *
+ * <p>As the accepted queries are known without querying the filter, a type indexed filter can skip this filter for
+ * queries of any other type.</p>
+ *
+ * @param <Q> the query type
+ * @see com.seiama.filter.Filter#typeIndexed(com.seiama.filter.AnyFilter)
+ * @since 1.0.0
+ */
+@NullMarked
+public interface ClassTypedFilter<Q extends FilterQuery> extends TypedFilter<Q> {
+  /**
+   * Gets the type of queries this filter accepts.
+   *
+   * @return the query type
+   * @since 1.0.0
+   */
+  @Contract(pure = true)
+  Class<Q> queryType();
+
+  @NonExtendable
+  @Override
+  default boolean queryableWith(final FilterQuery query) {
+    return this.queryType().isInstance(query);
+  }
+}
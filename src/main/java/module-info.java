@@ -24,7 +24,11 @@
 module com.seiama.filter {
   requires static transitive org.jetbrains.annotations;
   requires static transitive org.jspecify;
+  requires static jdk.jfr;
 
   exports com.seiama.filter;
+  exports com.seiama.filter.membership;
+  exports com.seiama.filter.range;
+  exports com.seiama.filter.text;
   exports com.seiama.filter.typed;
 }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveFilterTest {
+  @Test
+  void testUnboxOriginalFilter() {
+    final AllFilter original = Filter.all(new TestFilters.Equals(0), new TestFilters.Equals(1));
+    final AdaptiveFilter filter = Filter.adaptive(original);
+    assertSame(original, filter.filter());
+    assertIterableEquals(original.filters(), filter.filters());
+  }
+
+  @Test
+  void testQueryMatchesOriginal() {
+    final List<Filter> children = List.of(
+      new TestFilters.Variable(0),
+      Filter.abstain(),
+      new TestFilters.Variable(1),
+      Filter.one(new TestFilters.Variable(2), new TestFilters.Variable(3)),
+      new TestFilters.Variable(3)
+    );
+    final AllFilter all = Filter.all(children);
+    final AnyFilter any = Filter.any(children);
+    final AdaptiveFilter adaptiveAll = new AdaptiveFilterImpl(all, all.filters(), FilterResponse.DENY, 2, 8);
+    final AdaptiveFilter adaptiveAny = new AdaptiveFilterImpl(any, any.filters(), FilterResponse.ALLOW, 2, 8);
+    for (int repetition = 0; repetition < 10; repetition++) {
+      for (final TestFilterQuery query : TestFilters.assignments(4)) {
+        assertEquals(all.query(query), adaptiveAll.query(query));
+        assertEquals(any.query(query), adaptiveAny.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testReorder() {
+    final Filter allow = Filter.allow();
+    final Filter deny = new TestFilters.Below(0);
+    final AllFilter all = Filter.all(allow, allow, allow, deny);
+    final AdaptiveFilter filter = new AdaptiveFilterImpl(all, all.filters(), FilterResponse.DENY, 1, 16);
+    for (int i = 0; i < 16; i++) {
+      assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(i)));
+    }
+    assertSame(deny, filter.filters().get(0));
+  }
+
+  @Test
+  void testSampledQueriesStopEarly() {
+    final AtomicInteger queries = new AtomicInteger();
+    final Filter counted = query -> {
+      queries.incrementAndGet();
+      return FilterResponse.ALLOW;
+    };
+    final AdaptiveFilter filter = Filter.adaptive(Filter.any(Filter.allow(), counted), 1, 1024);
+    for (int i = 0; i < 16; i++) {
+      assertEquals(FilterResponse.ALLOW, filter.query(new TestFilterQuery(i)));
+    }
+    assertEquals(0, queries.get());
+  }
+
+  @Test
+  void testReorderUnreachedChildren() {
+    final Filter slow = query -> {
+      final long end = System.nanoTime() + 100_000;
+      while (System.nanoTime() < end) {
+        Thread.onSpinWait();
+      }
+      return FilterResponse.DENY;
+    };
+    final Filter unreached = new TestFilters.Below(0);
+    final AdaptiveFilter filter = Filter.adaptive(Filter.all(Filter.allow(), slow, unreached), 1, 4);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(i)));
+    }
+    // a child which has never been reached is moved to the front to be measured, and then stays there for being cheap
+    assertSame(unreached, filter.filters().get(0));
+    for (int i = 0; i < 4; i++) {
+      assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(i)));
+    }
+    assertSame(unreached, filter.filters().get(0));
+  }
+
+  @Test
+  void testInvalidArguments() {
+    final AllFilter all = Filter.all(Filter.allow());
+    assertThrows(IllegalArgumentException.class, () -> Filter.adaptive(all, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> Filter.adaptive(Filter.any(Filter.allow()), 1, 0));
+  }
+}
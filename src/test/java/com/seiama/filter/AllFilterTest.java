@@ -29,8 +29,10 @@ import com.seiama.filter.test.TestFilters;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AllFilterTest {
@@ -80,4 +82,26 @@ class AllFilterTest {
       )
       .testEquals();
   }
+
+  @Test
+  void testBatchQuery() {
+    final Filter filter = Filter.all(
+      new TestFilters.Variable(0),
+      Filter.all(new TestFilters.Variable(1), new TestFilters.Variable(2)),
+      Filter.one(new TestFilters.Variable(2), new TestFilters.Variable(3)),
+      Filter.any(new TestFilters.Variable(3), new TestFilters.Variable(0))
+    );
+    final List<TestFilterQuery> queries = TestFilters.assignments(4);
+    final FilterResponse[] responses = new FilterResponse[queries.size()];
+    filter.query(queries, responses);
+    for (int i = 0; i < queries.size(); i++) {
+      assertEquals(filter.query(queries.get(i)), responses[i]);
+    }
+  }
+
+  @Test
+  void testBatchQueryRequiresResponses() {
+    final Filter filter = Filter.all(new TestFilters.Equals(0));
+    assertThrows(IllegalArgumentException.class, () -> filter.query(TestFilters.assignments(1), new FilterResponse[2]));
+  }
 }
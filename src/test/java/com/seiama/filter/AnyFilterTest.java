@@ -29,6 +29,7 @@ import com.seiama.filter.test.TestFilters;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -78,4 +79,20 @@ class AnyFilterTest {
       )
       .testEquals();
   }
+
+  @Test
+  void testBatchQuery() {
+    final Filter filter = Filter.any(
+      new TestFilters.Variable(0),
+      Filter.all(new TestFilters.Variable(1), new TestFilters.Variable(2)),
+      Filter.any(new TestFilters.Variable(2), new TestFilters.Variable(3)),
+      Filter.one(new TestFilters.Variable(3), new TestFilters.Variable(0))
+    );
+    final List<TestFilterQuery> queries = TestFilters.assignments(4);
+    final FilterResponse[] responses = new FilterResponse[queries.size()];
+    filter.query(queries, responses);
+    for (int i = 0; i < queries.size(); i++) {
+      assertEquals(filter.query(queries.get(i)), responses[i]);
+    }
+  }
 }
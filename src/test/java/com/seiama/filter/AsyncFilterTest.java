@@ -0,0 +1,163 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFilterTest {
+  private static final int VARIABLES = 4;
+
+  @Test
+  void testQueryMatchesFilter() {
+    final List<Filter> children = new ArrayList<>();
+    final List<AsyncFilter> asyncChildren = new ArrayList<>();
+    for (int i = 0; i < VARIABLES; i++) {
+      children.add(new TestFilters.Variable(i));
+      asyncChildren.add(AsyncFilter.of(new TestFilters.Variable(i)));
+    }
+    final List<Filter> filters = List.of(Filter.all(children), Filter.any(children), Filter.one(children), Filter.not(Filter.one(children)));
+    final List<AsyncFilter> asyncFilters = List.of(AsyncFilter.all(asyncChildren), AsyncFilter.any(asyncChildren), AsyncFilter.one(asyncChildren), AsyncFilter.not(AsyncFilter.one(asyncChildren)));
+    for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+      for (int i = 0; i < filters.size(); i++) {
+        assertEquals(filters.get(i).query(query), asyncFilters.get(i).queryAsync(query).toCompletableFuture().join());
+      }
+    }
+  }
+
+  @Test
+  void testQueryMatchesFilterOutOfOrder() {
+    final Random random = new Random(0);
+    final List<Function<List<Filter>, Filter>> kinds = List.of(Filter::all, Filter::any, Filter::one);
+    final List<Function<List<AsyncFilter>, AsyncFilter>> asyncKinds = List.of(AsyncFilter::all, AsyncFilter::any, AsyncFilter::one);
+    for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+      for (int kind = 0; kind < kinds.size(); kind++) {
+        final List<Filter> children = new ArrayList<>();
+        final List<CompletableFuture<FilterResponse>> futures = new ArrayList<>();
+        final List<AsyncFilter> asyncChildren = new ArrayList<>();
+        for (int i = 0; i < VARIABLES; i++) {
+          final CompletableFuture<FilterResponse> future = new CompletableFuture<>();
+          children.add(new TestFilters.Variable(i));
+          futures.add(future);
+          asyncChildren.add(q -> future);
+        }
+        final CompletableFuture<FilterResponse> response = asyncKinds.get(kind).apply(asyncChildren).queryAsync(query).toCompletableFuture();
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < VARIABLES; i++) {
+          order.add(i);
+        }
+        Collections.shuffle(order, random);
+        for (final int i : order) {
+          futures.get(i).complete(children.get(i).query(query));
+        }
+        assertEquals(kinds.get(kind).apply(children).query(query), response.join());
+      }
+    }
+  }
+
+  @Test
+  void testQueryCancelsWhenDecided() {
+    final CompletableFuture<FilterResponse> pending = new CompletableFuture<>();
+    final CompletableFuture<FilterResponse> all = AsyncFilter.all(query -> pending, AsyncFilter.of(Filter.deny())).queryAsync(new TestFilterQuery(0)).toCompletableFuture();
+    assertEquals(FilterResponse.DENY, all.join());
+    assertTrue(pending.isCancelled());
+
+    final CompletableFuture<FilterResponse> first = new CompletableFuture<>();
+    final AtomicBoolean launched = new AtomicBoolean();
+    final CompletableFuture<FilterResponse> one = AsyncFilter.one(
+      query -> first,
+      AsyncFilter.of(Filter.allow()),
+      AsyncFilter.of(Filter.abstain()),
+      AsyncFilter.of(Filter.allow()),
+      query -> {
+        launched.set(true);
+        return new CompletableFuture<>();
+      }
+    ).queryAsync(new TestFilterQuery(0)).toCompletableFuture();
+    assertEquals(FilterResponse.DENY, one.join());
+    assertTrue(first.isCancelled());
+    assertFalse(launched.get());
+  }
+
+  @Test
+  void testCancelPropagates() {
+    final CompletableFuture<FilterResponse> pending = new CompletableFuture<>();
+    final CompletableFuture<FilterResponse> response = AsyncFilter.not(AsyncFilter.any(query -> pending, AsyncFilter.of(Filter.deny()))).queryAsync(new TestFilterQuery(0)).toCompletableFuture();
+    assertFalse(response.isDone());
+    response.cancel(false);
+    assertTrue(pending.isCancelled());
+  }
+
+  @Test
+  void testQueryFailure() {
+    final IllegalStateException failure = new IllegalStateException();
+    final AsyncFilter failing = AsyncFilter.of(query -> {
+      throw failure;
+    });
+    final CompletionException thrown = assertThrows(CompletionException.class, () -> AsyncFilter.all(AsyncFilter.of(Filter.allow()), failing).queryAsync(new TestFilterQuery(0)).toCompletableFuture().join());
+    assertEquals(failure, thrown.getCause());
+    assertEquals(FilterResponse.DENY, AsyncFilter.all(AsyncFilter.of(Filter.deny()), failing).queryAsync(new TestFilterQuery(0)).toCompletableFuture().join());
+  }
+
+  @Test
+  void testQueryWithExecutor() {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<AsyncFilter> children = new ArrayList<>();
+      for (int i = 0; i < VARIABLES; i++) {
+        children.add(AsyncFilter.of(new TestFilters.Variable(i), executor));
+      }
+      final AsyncFilter any = AsyncFilter.any(children);
+      final Filter expected = Filter.any(new TestFilters.Variable(0), new TestFilters.Variable(1), new TestFilters.Variable(2), new TestFilters.Variable(3));
+      for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+        assertEquals(expected.query(query), any.queryAsync(query).toCompletableFuture().join());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testEmpty() {
+    assertEquals(FilterResponse.ABSTAIN, AsyncFilter.all().queryAsync(new TestFilterQuery(0)).toCompletableFuture().join());
+    assertInstanceOf(AsyncCompositeFilterImpl.class, AsyncFilter.one());
+  }
+}
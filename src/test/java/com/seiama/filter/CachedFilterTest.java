@@ -0,0 +1,172 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedFilterTest {
+  @Test
+  void testUnboxOriginalFilter() {
+    final Filter original = new TestFilters.Equals(20);
+    final CachedFilter filter = Filter.cached(original, 10);
+    assertSame(original, filter.filter());
+  }
+
+  @Test
+  void testQuery() {
+    final AtomicInteger calls = new AtomicInteger();
+    final CachedFilter filter = Filter.cached(counting(new TestFilters.Equals(10), calls), 10);
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    assertTrue(filter.denies(new TestFilterQuery(20)));
+    assertEquals(2, calls.get());
+    assertEquals(new CachedFilter.Stats(1, 2, 0), filter.stats());
+  }
+
+  @Test
+  void testKey() {
+    final AtomicInteger calls = new AtomicInteger();
+    final CachedFilter filter = Filter.cached(counting(new TestFilters.Below(10), calls), query -> ((TestFilterQuery) query).value() < 10, 10, null);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i < 10, filter.allows(new TestFilterQuery(i)));
+    }
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testEviction() {
+    final CachedFilter filter = Filter.cached(new TestFilters.Equals(0), 10);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(i + 1)));
+    }
+    // keep the first half referenced, so the second half is evicted first
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(i + 1)));
+    }
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(-i - 1)));
+    }
+    assertEquals(new CachedFilter.Stats(5, 15, 5), filter.stats());
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(i + 1)));
+    }
+    assertEquals(new CachedFilter.Stats(10, 15, 5), filter.stats());
+  }
+
+  @Test
+  void testGrowth() {
+    final CachedFilter filter = Filter.cached(new TestFilters.Equals(0), 100);
+    // the cache only evicts once it holds the maximum size, however small it started
+    for (int i = 0; i < 100; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(i + 1)));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(i + 1)));
+    }
+    assertEquals(new CachedFilter.Stats(100, 100, 0), filter.stats());
+    for (int i = 0; i < 50; i++) {
+      assertTrue(filter.denies(new TestFilterQuery(-i - 1)));
+    }
+    assertEquals(new CachedFilter.Stats(100, 150, 50), filter.stats());
+    assertEquals("CachedFilterImpl[filter=" + filter.filter() + ", maximumSize=100]", filter.toString());
+  }
+
+  @Test
+  void testExpireAfterWrite() {
+    final AtomicLong time = new AtomicLong();
+    final AtomicInteger calls = new AtomicInteger();
+    final CachedFilter filter = new CachedFilterImpl(counting(new TestFilters.Equals(10), calls), query -> query, 10, Duration.ofSeconds(1).toNanos(), time::get);
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    time.addAndGet(Duration.ofMillis(999).toNanos());
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    assertEquals(1, calls.get());
+    time.addAndGet(Duration.ofMillis(1).toNanos());
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    assertEquals(2, calls.get());
+    assertEquals(new CachedFilter.Stats(1, 2, 0), filter.stats());
+  }
+
+  @Test
+  void testInvalidateAll() {
+    final AtomicInteger calls = new AtomicInteger();
+    final CachedFilter filter = Filter.cached(counting(new TestFilters.Equals(10), calls), 10);
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    filter.invalidateAll();
+    assertTrue(filter.allows(new TestFilterQuery(10)));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testInvalidArguments() {
+    final Filter filter = new TestFilters.Equals(10);
+    assertThrows(IllegalArgumentException.class, () -> Filter.cached(filter, 0));
+    assertThrows(IllegalArgumentException.class, () -> Filter.cached(filter, query -> query, 10, Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  void testConcurrentQuery() throws Exception {
+    final CachedFilter filter = Filter.cached(new TestFilters.Below(50), 16);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            final int value = i % 100;
+            assertEquals(value < 50, filter.allows(new TestFilterQuery(value)));
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    final CachedFilter.Stats stats = filter.stats();
+    assertEquals(40_000, stats.hitCount() + stats.missCount());
+  }
+
+  private static Filter counting(final Filter filter, final AtomicInteger calls) {
+    return query -> {
+      calls.incrementAndGet();
+      return filter.query(query);
+    };
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterCodecTest {
+  private static final int VARIABLES = 3;
+  private static final FilterCodec CODEC = FilterCodec.create()
+    .withLeaf("variable", TestFilters.Variable.class, new LeafCodec<>() {
+      @Override
+      public void write(final TestFilters.Variable filter, final DataOutput output) throws IOException {
+        output.writeInt(filter.index());
+      }
+
+      @Override
+      public TestFilters.Variable read(final DataInput input) throws IOException {
+        return new TestFilters.Variable(input.readInt());
+      }
+    })
+    .withLeaf("equals", TestFilters.Equals.class, new LeafCodec<>() {
+      @Override
+      public void write(final TestFilters.Equals filter, final DataOutput output) throws IOException {
+        output.writeInt(filter.value());
+      }
+
+      @Override
+      public TestFilters.Equals read(final DataInput input) throws IOException {
+        return new TestFilters.Equals(input.readInt());
+      }
+    });
+
+  @Test
+  void testRoundTrip() throws IOException {
+    final Random random = new Random(0);
+    final List<TestFilterQuery> assignments = TestFilters.assignments(VARIABLES);
+    for (int i = 0; i < 500; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final Filter read = CODEC.read(new DataInputStream(new ByteArrayInputStream(write(filter))));
+      assertEquals(filter, read);
+      for (final TestFilterQuery query : assignments) {
+        assertEquals(filter.query(query), read.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testSharedSubtrees() throws IOException {
+    final Filter shared = Filter.all(new TestFilters.Equals(1), new TestFilters.Variable(0));
+    final Filter filter = Filter.any(shared, Filter.not(shared), Filter.one(shared, Filter.allow()));
+    final byte[] bytes = write(filter);
+    final Filter read = CODEC.read(ByteBuffer.wrap(bytes));
+    assertEquals(filter, read);
+    final List<? extends Filter> children = ((AnyFilter) read).filters();
+    assertSame(children.get(0), ((NotFilter) children.get(1)).filter());
+    assertSame(children.get(0), ((OneFilter) children.get(2)).filters().get(0));
+    // the shared subtree is written once
+    assertTrue(bytes.length < write(Filter.any(shared, shared)).length + 8);
+  }
+
+  @Test
+  void testByteBuffer() throws IOException {
+    final Filter filter = Filter.all(Filter.any(), Filter.not(new TestFilters.Equals(300)), Filter.deny());
+    final ByteBuffer buffer = ByteBuffer.allocate(64);
+    CODEC.write(filter, buffer);
+    buffer.flip();
+    assertEquals(filter, CODEC.read(buffer));
+    assertEquals(0, buffer.remaining());
+  }
+
+  @Test
+  void testDeepFilter() throws IOException {
+    Filter filter = new TestFilters.Equals(0);
+    for (int i = 0; i < 100_000; i++) {
+      filter = i % 2 == 0 ? Filter.not(filter) : Filter.all(filter);
+    }
+    final Filter read = CODEC.read(ByteBuffer.wrap(write(filter)));
+    assertEquals(FilterResponse.ALLOW, Filter.program(read).query(new TestFilterQuery(0)));
+  }
+
+  @Test
+  void testInvalidInput() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> write(new TestFilters.Below(1)));
+    final byte[] bytes = write(Filter.not(new TestFilters.Equals(1)));
+    assertThrows(IOException.class, () -> FilterCodec.create().read(ByteBuffer.wrap(bytes)));
+    bytes[4] = 2;
+    assertThrows(IOException.class, () -> CODEC.read(ByteBuffer.wrap(bytes)));
+    assertThrows(IOException.class, () -> CODEC.read(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5})));
+    // a tag followed by -1 or by Integer.MAX_VALUE
+    final int[] negative = {0xFF, 0xFF, 0xFF, 0xFF, 0x0F};
+    final int[] maximum = {0xFF, 0xFF, 0xFF, 0xFF, 0x07};
+    for (final int tag : new int[]{0, 1, 2, 4, 5, 6}) {
+      assertThrows(IOException.class, () -> CODEC.read(ByteBuffer.wrap(encoded(tag, negative))));
+      assertThrows(IOException.class, () -> CODEC.read(ByteBuffer.wrap(encoded(tag, maximum))));
+    }
+  }
+
+  private static byte[] encoded(final int tag, final int[] number) {
+    final ByteBuffer buffer = ByteBuffer.allocate(6 + number.length).putInt(0x46_49_4C_54).put((byte) 1).put((byte) tag);
+    for (final int b : number) {
+      buffer.put((byte) b);
+    }
+    return buffer.array();
+  }
+
+  private static byte[] write(final Filter filter) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CODEC.write(filter, new DataOutputStream(bytes));
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterCompilerTest {
+  private static final int VARIABLES = 4;
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final Filter compiled = Filter.compile(filter);
+      for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+        assertEquals(filter.query(query), compiled.query(query), () -> filter + " compiled with " + query);
+      }
+    }
+  }
+
+  @Test
+  void testWideFilters() {
+    final List<Filter> children = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      children.add(new TestFilters.Equals(i));
+    }
+    final List<Filter> filters = List.of(Filter.all(children), Filter.any(children), Filter.one(children));
+    for (final Filter filter : filters) {
+      final Filter compiled = Filter.compile(filter);
+      for (final int value : new int[] {-1, 0, 31, 32, 1024, 4999, 5000}) {
+        final TestFilterQuery query = new TestFilterQuery(value);
+        assertEquals(filter.query(query), compiled.query(query), () -> "compiled with " + query);
+      }
+    }
+  }
+
+  @Test
+  void testDeepFilters() {
+    Filter filter = new TestFilters.Equals(0);
+    for (int i = 0; i < 1000; i++) {
+      filter = i % 2 == 0 ? Filter.not(filter) : Filter.any(new TestFilters.Equals(i), filter);
+    }
+    final Filter compiled = Filter.compile(filter);
+    for (int i = -1; i < 1000; i++) {
+      final TestFilterQuery query = new TestFilterQuery(i);
+      assertEquals(filter.query(query), compiled.query(query), () -> "compiled with " + query);
+    }
+  }
+
+  @Test
+  void testHiddenClassPerFilter() {
+    final Filter first = Filter.compile(Filter.all(new TestFilters.Variable(0)));
+    final Filter second = Filter.compile(Filter.all(new TestFilters.Variable(1)));
+    assertTrue(first.getClass().isHidden());
+    assertTrue(first.getClass() != second.getClass());
+    assertEquals("CompiledFilter[filter=" + Filter.all(new TestFilters.Variable(0)) + "]", first.toString());
+  }
+
+  @Test
+  void testExceptionPropagates() {
+    final IllegalStateException failure = new IllegalStateException();
+    final Filter compiled = Filter.compile(Filter.not(Filter.any(Filter.abstain(), query -> {
+      throw failure;
+    })));
+    assertSame(failure, assertThrows(IllegalStateException.class, () -> compiled.query(new TestFilterQuery(0))));
+  }
+}
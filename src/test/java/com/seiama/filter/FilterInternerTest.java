@@ -0,0 +1,105 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterInternerTest {
+  @Test
+  void testSharesEqualSubtrees() {
+    final FilterInterner interner = FilterInterner.create();
+    final Filter first = interner.intern(Filter.any(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5)), Filter.not(new TestFilters.Above(3))));
+    final Filter second = interner.intern(Filter.one(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5)), Filter.not(new TestFilters.Above(3))));
+    assertSame(Composition.children(first).get(0), Composition.children(second).get(0));
+    assertSame(Composition.children(first).get(1), Composition.children(second).get(1));
+    assertSame(first, interner.any(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5)), Filter.not(new TestFilters.Above(3))));
+    assertNotSame(first, interner.all(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5)), Filter.not(new TestFilters.Above(3))));
+    assertNotSame(interner.all(new TestFilters.Equals(1), new TestFilters.Equals(2)), interner.all(new TestFilters.Equals(2), new TestFilters.Equals(1)));
+  }
+
+  @Test
+  void testKeepsCanonicalInstances() {
+    final FilterInterner interner = FilterInterner.create();
+    final Filter all = Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5));
+    assertSame(all, interner.intern(all));
+    assertSame(all, interner.intern(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5))));
+    assertSame(interner.not(all), interner.not(Filter.all(new TestFilters.Equals(1), new TestFilters.Below(5))));
+  }
+
+  @Test
+  void testRespondsAlike() {
+    final Random random = new Random(0);
+    final FilterInterner interner = FilterInterner.create();
+    for (int i = 0; i < 200; i++) {
+      final Filter filter = TestFilters.random(random, 3, 4);
+      final Filter interned = interner.intern(filter);
+      assertEquals(filter, interned);
+      for (final TestFilterQuery query : TestFilters.assignments(3)) {
+        assertEquals(filter.query(query), interned.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testDeepFilters() {
+    final FilterInterner interner = FilterInterner.create();
+    // built from the bottom up, each level is interned once
+    Filter chain = new TestFilters.Equals(0);
+    for (int i = 0; i < 100_000; i++) {
+      chain = interner.all(chain, new TestFilters.Equals(i % 10));
+    }
+    // a deep copy is interned as a whole, without recursion
+    Filter copy = new TestFilters.Equals(0);
+    for (int i = 0; i < 100_000; i++) {
+      copy = Filter.all(copy, new TestFilters.Equals(i % 10));
+    }
+    assertSame(chain, interner.intern(copy));
+  }
+
+  @Test
+  void testReleasesUnreachableFilters() throws InterruptedException {
+    final FilterInterner interner = FilterInterner.create();
+    final List<Filter> filters = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      filters.add(interner.all(new TestFilters.Equals(i), new TestFilters.Below(i)));
+    }
+    assertEquals(3000, interner.size());
+    filters.clear();
+    for (int i = 0; i < 50 && interner.size() > 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(interner.size() < 3000);
+  }
+}
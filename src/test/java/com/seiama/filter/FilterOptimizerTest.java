@@ -0,0 +1,93 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FilterOptimizerTest {
+  private static final int VARIABLES = 4;
+  private static final int ASSIGNMENTS = 81; // 3^VARIABLES
+  private static final Filter A = new TestFilters.Variable(0);
+  private static final Filter B = new TestFilters.Variable(1);
+  private static final Filter C = new TestFilters.Variable(2);
+
+  @Test
+  void testFlatten() {
+    assertEquals(Filter.all(A, B, C), Filter.optimize(Filter.all(Filter.all(A, B), C)));
+    assertEquals(Filter.any(A, B, C), Filter.optimize(Filter.any(A, Filter.any(B, Filter.any(C)))));
+    assertEquals(Filter.one(Filter.one(A, B), C), Filter.optimize(Filter.one(Filter.one(A, B), C)));
+  }
+
+  @Test
+  void testDoubleNegation() {
+    assertSame(A, Filter.optimize(Filter.not(Filter.not(A))));
+    assertEquals(Filter.not(A), Filter.optimize(Filter.not(Filter.not(Filter.not(A)))));
+  }
+
+  @Test
+  void testConstantFolding() {
+    assertEquals(Filter.deny(), Filter.optimize(Filter.all(A, Filter.deny(), B)));
+    assertEquals(Filter.all(A, Filter.allow(), B), Filter.optimize(Filter.all(A, Filter.allow(), Filter.abstain(), B, Filter.allow())));
+    assertEquals(Filter.allow(), Filter.optimize(Filter.any(A, Filter.allow(), B)));
+    assertEquals(Filter.any(A, Filter.deny()), Filter.optimize(Filter.any(Filter.abstain(), A, Filter.deny(), Filter.deny())));
+    assertEquals(Filter.deny(), Filter.optimize(Filter.one(A, Filter.allow(), Filter.abstain(), Filter.allow(), B)));
+    assertEquals(Filter.deny(), Filter.optimize(Filter.one(A, B, Filter.deny())));
+    assertEquals(Filter.allow(), Filter.optimize(Filter.not(Filter.deny())));
+    assertEquals(Filter.abstain(), Filter.optimize(Filter.all()));
+  }
+
+  @Test
+  void testSingleChild() {
+    assertSame(A, Filter.optimize(Filter.all(A)));
+    assertSame(A, Filter.optimize(Filter.any(Filter.abstain(), A)));
+    assertSame(A, Filter.optimize(Filter.one(A, Filter.abstain())));
+  }
+
+  @Test
+  void testUnchanged() {
+    final Filter all = Filter.all(A, Filter.any(B, C), Filter.not(A));
+    assertSame(all, Filter.optimize(all));
+    final Filter one = Filter.one(A, Filter.allow(), B);
+    assertSame(one, Filter.optimize(one));
+  }
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 2000; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final Filter optimized = Filter.optimize(filter);
+      for (int assignment = 0; assignment < ASSIGNMENTS; assignment++) {
+        final TestFilterQuery query = new TestFilterQuery(assignment);
+        assertEquals(filter.query(query), optimized.query(query), () -> filter + " optimized to " + optimized + " with " + query);
+      }
+    }
+  }
+}
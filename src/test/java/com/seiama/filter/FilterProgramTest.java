@@ -0,0 +1,126 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilterProgramTest {
+  private static final int VARIABLES = 3;
+
+  @Test
+  void testEncoding() {
+    final Filter a = new TestFilters.Variable(0);
+    final FilterProgram program = Filter.program(Filter.any(Filter.not(a), Filter.allow(), Filter.all(), a));
+    assertArrayEquals(new int[]{
+      FilterProgram.ANY, 4, 13,
+      FilterProgram.NOT, FilterProgram.LEAF, 0,
+      FilterProgram.CONST, FilterResponse.ALLOW.ordinal(),
+      FilterProgram.ALL, 0, 11,
+      FilterProgram.LEAF, 0
+    }, program.code());
+    assertEquals(List.of(a), program.leaves());
+    assertEquals(2, program.depth());
+  }
+
+  @Test
+  void testSharedFilters() {
+    final Filter a = new TestFilters.Variable(0);
+    final Filter shared = Filter.all(a, new TestFilters.Variable(1));
+    final FilterProgram program = Filter.program(Filter.any(shared, Filter.not(shared)));
+    assertArrayEquals(new int[]{
+      FilterProgram.ANY, 2, 13,
+      FilterProgram.ALL, 2, 10,
+      FilterProgram.LEAF, 0,
+      FilterProgram.LEAF, 1,
+      FilterProgram.NOT, FilterProgram.CALL, 3
+    }, program.code());
+    // the any, not, call and all filter
+    assertEquals(4, program.depth());
+    for (final TestFilterQuery query : TestFilters.assignments(2)) {
+      assertEquals(Filter.any(shared, Filter.not(shared)).query(query), program.query(query));
+    }
+  }
+
+  @Test
+  void testSharedFiltersGrowLinearly() {
+    Filter filter = new TestFilters.Variable(0);
+    for (int i = 0; i < 40; i++) {
+      filter = Filter.any(Filter.not(filter), filter);
+      if (i == 10) {
+        final FilterProgram program = Filter.program(filter);
+        for (final TestFilterQuery query : TestFilters.assignments(1)) {
+          assertEquals(filter.query(query), program.query(query));
+        }
+      }
+    }
+    // six instructions for every any, not and call, where the unfolded tree doubles with every level
+    assertEquals(40 * 6 + 2, Filter.program(filter).code().length);
+  }
+
+  @Test
+  void testMatchesOriginal() {
+    final Random random = new Random(0);
+    final List<TestFilterQuery> assignments = TestFilters.assignments(VARIABLES);
+    for (int i = 0; i < 1000; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final FilterProgram program = Filter.program(filter);
+      for (final TestFilterQuery query : assignments) {
+        assertEquals(filter.query(query), program.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testShortCircuit() {
+    final AtomicInteger queries = new AtomicInteger();
+    final Filter counted = query -> {
+      queries.incrementAndGet();
+      return FilterResponse.ALLOW;
+    };
+    final FilterProgram program = Filter.program(Filter.all(Filter.any(counted, counted), Filter.deny(), counted, Filter.one(counted, counted, counted)));
+    assertEquals(FilterResponse.DENY, program.query(new TestFilterQuery(0)));
+    assertEquals(1, queries.get());
+  }
+
+  @Test
+  void testDeepFilter() {
+    Filter filter = new TestFilters.Equals(0);
+    for (int i = 0; i < 100_000; i++) {
+      filter = i % 2 == 0 ? Filter.not(filter) : Filter.any(Filter.abstain(), filter);
+    }
+    final FilterProgram program = Filter.program(filter);
+    assertEquals(100_000, program.depth());
+    // an even number of inversions
+    assertEquals(FilterResponse.ALLOW, program.query(new TestFilterQuery(0)));
+    assertEquals(FilterResponse.DENY, program.query(new TestFilterQuery(1)));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.google.common.testing.EqualsTester;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterResponseVectorTest {
+  private static final int SIZE = 130;
+  private static final FilterQuery QUERY = new FilterQuery() {
+  };
+
+  @Test
+  void testGetSet() {
+    final FilterResponse[] responses = randomResponses(new Random(0));
+    final FilterResponseVector vector = FilterResponseVector.of(responses);
+    assertEquals(SIZE, vector.size());
+    assertArrayEquals(responses, vector.toArray());
+    vector.set(64, FilterResponse.ALLOW);
+    assertEquals(FilterResponse.ALLOW, vector.get(64));
+    vector.set(64, FilterResponse.DENY);
+    assertEquals(FilterResponse.DENY, vector.get(64));
+    vector.set(64, FilterResponse.ABSTAIN);
+    assertEquals(FilterResponse.ABSTAIN, vector.get(64));
+    assertEquals(FilterResponse.ABSTAIN, FilterResponseVector.create(SIZE).get(SIZE - 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> vector.get(SIZE));
+  }
+
+  @Test
+  void testCombine() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 10; i++) {
+      final FilterResponse[] a = randomResponses(random);
+      final FilterResponse[] b = randomResponses(random);
+      final FilterResponse[] c = randomResponses(random);
+
+      final FilterResponseVector and = FilterResponseVector.of(a);
+      and.and(FilterResponseVector.of(b));
+      final FilterResponseVector or = FilterResponseVector.of(a);
+      or.or(FilterResponseVector.of(b));
+      final FilterResponseVector not = FilterResponseVector.of(a);
+      not.not();
+      final FilterResponseVector one = FilterResponseVector.exactlyOne(List.of(FilterResponseVector.of(a), FilterResponseVector.of(b), FilterResponseVector.of(c)));
+
+      for (int j = 0; j < SIZE; j++) {
+        final Filter fa = Filter.always(a[j]);
+        final Filter fb = Filter.always(b[j]);
+        final Filter fc = Filter.always(c[j]);
+        assertEquals(Filter.all(fa, fb).query(QUERY), and.get(j));
+        assertEquals(Filter.any(fa, fb).query(QUERY), or.get(j));
+        assertEquals(Filter.not(fa).query(QUERY), not.get(j));
+        assertEquals(Filter.one(fa, fb, fc).query(QUERY), one.get(j));
+      }
+    }
+  }
+
+  @Test
+  void testCombineRequiresSameSize() {
+    final FilterResponseVector vector = FilterResponseVector.create(SIZE);
+    assertThrows(IllegalArgumentException.class, () -> vector.and(FilterResponseVector.create(SIZE + 1)));
+    assertThrows(IllegalArgumentException.class, () -> FilterResponseVector.exactlyOne(List.of()));
+  }
+
+  @Test
+  void testCount() {
+    final FilterResponse[] responses = randomResponses(new Random(0));
+    final FilterResponseVector vector = FilterResponseVector.of(responses);
+    for (final FilterResponse response : FilterResponse.values()) {
+      int expected = 0;
+      for (final FilterResponse r : responses) {
+        if (r == response) {
+          expected++;
+        }
+      }
+      assertEquals(expected, vector.count(response));
+    }
+  }
+
+  @Test
+  void testAllowedIndices() {
+    final FilterResponse[] responses = randomResponses(new Random(0));
+    final FilterResponseVector vector = FilterResponseVector.of(responses);
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < SIZE; i++) {
+      if (responses[i] == FilterResponse.ALLOW) {
+        expected.add(i);
+      }
+    }
+    final List<Integer> forEach = new ArrayList<>();
+    vector.forEachAllowed(forEach::add);
+    assertEquals(expected, forEach);
+    final List<Integer> next = new ArrayList<>();
+    for (int i = vector.nextAllowed(0); i != -1; i = vector.nextAllowed(i + 1)) {
+      next.add(i);
+    }
+    assertEquals(expected, next);
+  }
+
+  @Test
+  void testEquality() {
+    new EqualsTester()
+      .addEqualityGroup(
+        FilterResponseVector.create(2),
+        FilterResponseVector.of(FilterResponse.ABSTAIN, FilterResponse.ABSTAIN)
+      )
+      .addEqualityGroup(
+        FilterResponseVector.of(FilterResponse.ALLOW, FilterResponse.DENY)
+      )
+      .testEquals();
+  }
+
+  private static FilterResponse[] randomResponses(final Random random) {
+    final FilterResponse[] responses = new FilterResponse[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      responses[i] = FilterResponse.values()[random.nextInt(FilterResponse.values().length)];
+    }
+    return responses;
+  }
+}
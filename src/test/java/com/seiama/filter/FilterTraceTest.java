@@ -0,0 +1,105 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterTraceTest {
+  private static final int VARIABLES = 4;
+
+  @Test
+  void testExplainMatchesQuery() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+        assertEquals(filter.query(query), filter.explain(query).response(), () -> filter + " explained with " + query);
+      }
+    }
+  }
+
+  @Test
+  void testExplainShortCircuit() {
+    final Filter a = new TestFilters.Variable(0);
+    final Filter b = new TestFilters.Variable(1);
+    final FilterTrace trace = Filter.all(a, Filter.not(b), a, b).explain(new TestFilterQuery(0));
+    assertEquals(FilterResponse.DENY, trace.response());
+    assertEquals(1, trace.decidingChild());
+    assertEquals(List.of(a, b), trace.skipped());
+    final FilterTrace not = trace.deciding();
+    assertEquals(Filter.not(b), not.filter());
+    assertEquals(List.of(new FilterTrace(b, FilterResponse.ALLOW, List.of(), -1, List.of())), not.children());
+    assertNull(not.deciding());
+  }
+
+  @Test
+  void testRender() {
+    final Filter a = new TestFilters.Variable(0);
+    final Filter any = Filter.any(a, Filter.deny());
+    assertEquals(
+      "ALLOW any (decided by child 0, skipped 1)\n"
+        + "  ALLOW " + a + "\n",
+      any.explain(new TestFilterQuery(0)).render()
+    );
+  }
+
+  @Test
+  void testRenderNested() {
+    final Filter a = new TestFilters.Variable(0);
+    final Filter b = new TestFilters.Variable(1);
+    final Filter filter = Filter.all(Filter.any(a, Filter.not(b)), b);
+    // a abstains and b allows
+    assertEquals(
+      "DENY all (decided by child 0, skipped 1)\n"
+        + "  DENY any\n"
+        + "    ABSTAIN " + a + "\n"
+        + "    DENY not\n"
+        + "      ALLOW " + b + "\n",
+      filter.explain(new TestFilterQuery(1)).render()
+    );
+  }
+
+  @Test
+  void testTraced() {
+    final List<FilterTrace> traces = new ArrayList<>();
+    final Filter filter = Filter.one(new TestFilters.Variable(0), new TestFilters.Variable(1));
+    final Filter traced = Filter.traced(filter, 1, traces::add);
+    for (final TestFilterQuery query : TestFilters.assignments(2)) {
+      assertEquals(filter.query(query), traced.query(query));
+    }
+    assertEquals(9, traces.size());
+    assertSame(filter, traces.get(0).filter());
+    assertThrows(IllegalArgumentException.class, () -> Filter.traced(filter, 0, traces::add));
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndexedAnyFilterTest {
+  private static final int KEYS = 5;
+
+  @Test
+  void testMatchesEqualityPredicates() {
+    final List<Filter> predicates = new ArrayList<>();
+    final Map<Integer, Filter> rules = new HashMap<>();
+    for (int i = 0; i < 100; i += 2) {
+      predicates.add(new TestFilters.Equals(i));
+      rules.put(i, Filter.allow());
+    }
+    final Filter linear = Filter.any(predicates);
+    final Filter indexed = Filter.indexedAny(TestFilterQuery.class, TestFilterQuery::value, rules, List.of());
+    for (int value = -10; value < 110; value++) {
+      assertEquals(linear.query(new TestFilterQuery(value)), indexed.query(new TestFilterQuery(value)));
+    }
+    assertEquals(FilterResponse.ABSTAIN, indexed.query(new FilterQuery() {
+    }));
+    assertEquals(FilterResponse.ABSTAIN, Filter.indexedAny(TestFilterQuery.class, TestFilterQuery::value, Map.of(), List.of()).query(new TestFilterQuery(0)));
+  }
+
+  @Test
+  void testMatchesAnyFilter() {
+    for (int rulesSize = 0; rulesSize <= 2; rulesSize++) {
+      final Map<Integer, Filter> rules = new HashMap<>();
+      final List<Filter> guarded = new ArrayList<>();
+      for (int key = 0; key < rulesSize; key++) {
+        final Filter rule = new TestFilters.Variable(key);
+        rules.put(key, rule);
+        guarded.add(new Guarded(key, rule));
+      }
+      final List<Filter> filters = List.of(new TestFilters.Variable(2), new TestFilters.Variable(3));
+      final List<Filter> children = new ArrayList<>(guarded);
+      children.addAll(filters);
+      final Filter linear = Filter.any(children);
+      final Filter indexed = Filter.indexedAny(TestFilterQuery.class, query -> query.value() % KEYS, rules, filters);
+      for (final TestFilterQuery assignment : TestFilters.assignments(4)) {
+        for (int key = 0; key < KEYS; key++) {
+          final TestFilterQuery query = new TestFilterQuery(assignment.value() * KEYS + key);
+          assertEquals(linear.query(query), indexed.query(query), () -> rules + " with " + query);
+        }
+      }
+    }
+  }
+
+  // the rule for queries with the key, which is the query value modulo KEYS, guarded as an equality predicate would
+  private record Guarded(int key, Filter rule) implements Filter {
+    @Override
+    public FilterResponse query(final FilterQuery query) {
+      if (!(query instanceof final TestFilterQuery testQuery)) {
+        return FilterResponse.ABSTAIN;
+      }
+      return testQuery.value() % KEYS == this.key ? this.rule.query(query) : FilterResponse.DENY;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedFilterTest {
+  private static final int VARIABLES = 4;
+
+  @Test
+  void testEquivalence() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final Filter instrumented = Filter.instrumented(filter, MetricsSink.create());
+      for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+        assertEquals(filter.query(query), instrumented.query(query), () -> filter + " instrumented with " + query);
+      }
+    }
+  }
+
+  @Test
+  void testMetrics() {
+    final MetricsSink sink = MetricsSink.create();
+    final Filter a = new TestFilters.Variable(0);
+    final Filter b = new TestFilters.Variable(1);
+    final Filter filter = Filter.all(a, Filter.not(b));
+    final InstrumentedFilter instrumented = Filter.instrumented(filter, sink);
+    for (final TestFilterQuery query : TestFilters.assignments(2)) {
+      assertEquals(filter.query(query), instrumented.query(query));
+    }
+    final List<FilterMetrics> metrics = sink.metrics();
+    assertEquals(4, metrics.size());
+    final FilterMetrics all = metrics.get(0);
+    assertSame(all, instrumented.metrics());
+    assertNull(all.parent());
+    assertEquals(9, all.invocations());
+    assertEquals(9, all.latency().count());
+    // a denies 3 times, stopping at the first child; b allows once a did not deny, stopping at the second child
+    assertEquals(5, all.responses(FilterResponse.DENY));
+    assertArrayEquals(new long[] {3, 2}, new long[] {all.shortCircuits().buckets()[0], all.shortCircuits().buckets()[1]});
+    final FilterMetrics not = metrics.get(2);
+    assertSame(all, not.parent());
+    assertEquals(1, not.index());
+    assertEquals(6, not.invocations());
+    final FilterMetrics notB = metrics.get(3);
+    assertEquals(2, notB.depth());
+    assertEquals(2, notB.responses(FilterResponse.ALLOW));
+    assertEquals(0, notB.shortCircuits().count());
+  }
+
+  @Test
+  void testDisabled() {
+    final MetricsSink sink = MetricsSink.create();
+    final InstrumentedFilter instrumented = Filter.instrumented(Filter.any(new TestFilters.Variable(0)), sink);
+    sink.enabled(false);
+    assertEquals(FilterResponse.ALLOW, instrumented.query(new TestFilterQuery(0)));
+    assertEquals(0, instrumented.metrics().invocations());
+    sink.enabled(true);
+    assertEquals(FilterResponse.ALLOW, instrumented.query(new TestFilterQuery(0)));
+    assertEquals(1, instrumented.metrics().invocations());
+    sink.reset();
+    assertEquals(0, instrumented.metrics().invocations());
+  }
+
+  @Test
+  void testReleasesUnreachableFilters() throws InterruptedException {
+    final MetricsSink sink = MetricsSink.create();
+    final InstrumentedFilter kept = Filter.instrumented(Filter.not(new TestFilters.Variable(0)), sink);
+    final List<InstrumentedFilter> filters = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      filters.add(Filter.instrumented(Filter.all(new TestFilters.Equals(i), new TestFilters.Below(i)), sink));
+    }
+    assertEquals(3002, sink.metrics().size());
+    filters.clear();
+    for (int i = 0; i < 50 && sink.metrics().size() > 2; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(sink.metrics().size() < 3002);
+    assertSame(kept.metrics(), sink.metrics().get(0));
+  }
+
+  @Test
+  void testHistogram() {
+    final Histogram histogram = new Histogram();
+    assertEquals(0, histogram.percentile(0.5));
+    for (long value = 0; value < 100; value++) {
+      histogram.record(value);
+    }
+    assertEquals(100, histogram.count());
+    assertEquals(0, Histogram.upperBound(0));
+    assertEquals(63, histogram.percentile(0.5));
+    assertEquals(127, histogram.percentile(1));
+    assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.BUCKETS - 1));
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(2));
+  }
+}
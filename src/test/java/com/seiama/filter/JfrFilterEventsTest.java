@@ -0,0 +1,95 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JfrFilterEventsTest {
+  @Test
+  void testAvailable() {
+    assertInstanceOf(JfrFilterEvents.class, FilterEvents.INSTANCE);
+  }
+
+  @Test
+  void testSlowEvaluation() throws IOException {
+    final Filter filter = Filter.instrumented(Filter.any(Filter.deny(), Filter.not(new TestFilters.Variable(0))), MetricsSink.create());
+    final List<RecordedEvent> events;
+    try (final Recording recording = new Recording()) {
+      recording.enable("com.seiama.filter.SlowEvaluation").withThreshold(Duration.ZERO);
+      recording.start();
+      assertEquals(FilterResponse.ALLOW, filter.query(new TestFilterQuery(2)));
+      recording.stop();
+      events = events(recording, "com.seiama.filter.SlowEvaluation");
+    }
+    assertEquals(4, events.size());
+    final RecordedEvent root = events.stream().filter(event -> event.getInt("depth") == 0).findFirst().orElseThrow();
+    assertEquals("any", root.getString("filterType"));
+    assertEquals(1, root.getInt("decidingChild"));
+    assertEquals("ALLOW", root.getString("response"));
+  }
+
+  @Test
+  void testThroughput() throws IOException, InterruptedException {
+    final Filter one = Filter.one(new TestFilters.Variable(0), new TestFilters.Variable(1));
+    final Filter filter = Filter.instrumented(one, MetricsSink.create());
+    for (final TestFilterQuery query : TestFilters.assignments(2)) {
+      assertEquals(one.query(query), filter.query(query));
+    }
+    final List<RecordedEvent> events;
+    try (final Recording recording = new Recording()) {
+      recording.enable("com.seiama.filter.Throughput").withPeriod(Duration.ofMillis(10));
+      recording.start();
+      Thread.sleep(200);
+      recording.stop();
+      events = events(recording, "com.seiama.filter.Throughput");
+    }
+    assertTrue(events.stream().anyMatch(event -> "one".equals(event.getString("filterType")) && event.getLong("invocations") == 9));
+  }
+
+  private static List<RecordedEvent> events(final Recording recording, final String name) throws IOException {
+    final Path file = Files.createTempFile("filter", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .toList();
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFilterTest {
+  private static final int VARIABLES = 3;
+  private static final Function<Filter, String> NAMES = filter -> "variable:" + ((TestFilters.Variable) filter).index();
+  private static final Function<String, Filter> REGISTRY = name -> name.startsWith("variable:")
+    ? new TestFilters.Variable(Integer.parseInt(name.substring("variable:".length())))
+    : null;
+
+  @Test
+  void testMatchesOriginal() throws IOException {
+    final Random random = new Random(0);
+    final List<TestFilterQuery> assignments = TestFilters.assignments(VARIABLES);
+    for (int i = 0; i < 500; i++) {
+      final Filter filter = TestFilters.random(random, VARIABLES, 4);
+      final MappedFilter mapped = MappedFilter.of(MappedFilter.encode(filter, NAMES), REGISTRY);
+      for (final TestFilterQuery query : assignments) {
+        assertEquals(filter.query(query), mapped.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testMappedFile() throws IOException {
+    final Filter filter = Filter.one(new TestFilters.Variable(0), Filter.not(new TestFilters.Variable(1)), Filter.any(new TestFilters.Variable(2), Filter.deny()));
+    final Path file = Files.createTempFile("filter", ".bin");
+    try {
+      try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.write(MappedFilter.encode(filter, NAMES));
+      }
+      final MappedFilter mapped = MappedFilter.map(file, REGISTRY);
+      assertEquals(3, mapped.leaves().size());
+      assertEquals(2, mapped.depth());
+      for (final TestFilterQuery query : TestFilters.assignments(VARIABLES)) {
+        assertEquals(filter.query(query), mapped.query(query));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void testInvalidInput() {
+    // with a shared filter, so corrupt calls are covered too
+    final Filter shared = Filter.not(new TestFilters.Variable(1));
+    final ByteBuffer encoded = MappedFilter.encode(Filter.all(new TestFilters.Variable(0), shared, Filter.any(shared)), NAMES);
+    assertThrows(IOException.class, () -> MappedFilter.of(encoded, name -> null));
+    assertThrows(IOException.class, () -> MappedFilter.of(encoded.duplicate().limit(encoded.limit() - 4), REGISTRY));
+    // a composite whose jump target is the marker of a not filter
+    final ByteBuffer negativeJump = ByteBuffer.allocate(128).putInt(0x46_50_52_47).putInt(1).putInt(2).putInt(1)
+      .putInt("variable:0".length()).put("variable:0".getBytes(StandardCharsets.UTF_8))
+      .putInt(10).putInt(FilterProgram.ALL).putInt(2).putInt(10).putInt(FilterProgram.ANY).putInt(1).putInt(-1)
+      .putInt(FilterProgram.LEAF).putInt(0).putInt(FilterProgram.LEAF).putInt(0)
+      .flip();
+    assertThrows(IOException.class, () -> MappedFilter.of(negativeJump, REGISTRY));
+    for (int i = 0; i < encoded.limit(); i++) {
+      final ByteBuffer corrupt = ByteBuffer.allocate(encoded.limit()).put(encoded.duplicate()).flip();
+      corrupt.put(i, (byte) (corrupt.get(i) + 1));
+      try {
+        final MappedFilter mapped = MappedFilter.of(corrupt, REGISTRY);
+        // a corruption which still decodes must still be a valid program
+        for (final TestFilterQuery query : TestFilters.assignments(2)) {
+          mapped.query(query);
+        }
+      } catch (final IOException | NumberFormatException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  void testSharedFilters() throws IOException {
+    Filter filter = new TestFilters.Variable(0);
+    for (int i = 0; i < 20; i++) {
+      filter = Filter.any(Filter.not(filter), filter);
+    }
+    final ByteBuffer encoded = MappedFilter.encode(filter, NAMES);
+    assertTrue(encoded.limit() < 1024);
+    final MappedFilter mapped = MappedFilter.of(encoded, REGISTRY);
+    for (final TestFilterQuery query : TestFilters.assignments(1)) {
+      assertEquals(filter.query(query), mapped.query(query));
+    }
+    // calls to the call itself, to a later instruction, and to a filter which has not ended yet
+    assertThrows(IOException.class, () -> MappedFilter.of(program(1, FilterProgram.CALL, 0), REGISTRY));
+    assertThrows(IOException.class, () -> MappedFilter.of(program(2, FilterProgram.ALL, 2, 7, FilterProgram.CALL, 5, FilterProgram.LEAF, 0), REGISTRY));
+    assertThrows(IOException.class, () -> MappedFilter.of(program(2, FilterProgram.NOT, FilterProgram.CALL, 0), REGISTRY));
+    // a call nesting deeper than the declared depth
+    assertThrows(IOException.class, () -> MappedFilter.of(program(2, FilterProgram.ALL, 2, 8, FilterProgram.NOT, FilterProgram.LEAF, 0, FilterProgram.CALL, 3), REGISTRY));
+    assertEquals(3, MappedFilter.of(program(3, FilterProgram.ALL, 2, 8, FilterProgram.NOT, FilterProgram.LEAF, 0, FilterProgram.CALL, 3), REGISTRY).depth());
+  }
+
+  // an encoded filter with a single leaf, variable:0
+  private static ByteBuffer program(final int depth, final int... code) {
+    final ByteBuffer buffer = ByteBuffer.allocate(128).putInt(0x46_50_52_47).putInt(1).putInt(depth).putInt(1)
+      .putInt("variable:0".length()).put("variable:0".getBytes(StandardCharsets.UTF_8))
+      .putInt(code.length);
+    for (final int instruction : code) {
+      buffer.putInt(instruction);
+    }
+    return buffer.flip();
+  }
+
+  @Test
+  void testDeepFilter() throws IOException {
+    Filter filter = new TestFilters.Variable(0);
+    for (int i = 0; i < 100_000; i++) {
+      filter = i % 2 == 0 ? Filter.not(filter) : Filter.one(Filter.abstain(), filter);
+    }
+    final MappedFilter mapped = MappedFilter.of(MappedFilter.encode(filter, NAMES), REGISTRY);
+    for (final TestFilterQuery query : TestFilters.assignments(1)) {
+      assertEquals(new TestFilters.Variable(0).query(query), mapped.query(query));
+    }
+  }
+}
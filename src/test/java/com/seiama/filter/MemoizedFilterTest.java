@@ -0,0 +1,91 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MemoizedFilterTest {
+  private static final int VARIABLES = 3;
+
+  @Test
+  void testQueriesSharedFiltersOnce() {
+    final AtomicInteger queries = new AtomicInteger();
+    final Filter a = query -> {
+      queries.incrementAndGet();
+      return FilterResponse.ALLOW;
+    };
+    final Filter filter = Filter.any(Filter.all(a, Filter.abstain()), Filter.all(a, Filter.deny()), Filter.not(a));
+    final Filter memoized = Filter.memoized(filter);
+    assertEquals(1, assertInstanceOf(MemoizedFilter.class, memoized).slots());
+    assertEquals(FilterResponse.ALLOW, memoized.query(new TestFilterQuery(0)));
+    assertEquals(1, queries.get());
+    assertEquals(FilterResponse.ALLOW, memoized.query(new TestFilterQuery(0)));
+    assertEquals(2, queries.get());
+  }
+
+  @Test
+  void testNothingShared() {
+    final Filter filter = Filter.all(new TestFilters.Variable(0), Filter.not(new TestFilters.Variable(1)));
+    assertSame(filter, Filter.memoized(filter));
+  }
+
+  @Test
+  void testMatchesOriginal() {
+    final Random random = new Random(0);
+    final List<TestFilterQuery> assignments = TestFilters.assignments(VARIABLES);
+    for (int i = 0; i < 500; i++) {
+      final Filter shared = TestFilters.random(random, VARIABLES, 2);
+      final Filter filter = Filter.one(
+        Filter.any(shared, TestFilters.random(random, VARIABLES, 2)),
+        Filter.not(shared),
+        Filter.all(TestFilters.random(random, VARIABLES, 2), shared)
+      );
+      final Filter memoized = Filter.memoized(filter);
+      for (final TestFilterQuery query : assignments) {
+        assertEquals(filter.query(query), memoized.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testReentrantQuery() {
+    final Filter[] memoized = new Filter[1];
+    final Filter reentrant = query -> query instanceof final TestFilterQuery test && test.value() > 0
+      ? memoized[0].query(new TestFilterQuery(test.value() - 1))
+      : FilterResponse.DENY;
+    final Filter shared = new TestFilters.Equals(0);
+    memoized[0] = Filter.memoized(Filter.any(shared, Filter.all(Filter.not(shared), reentrant)));
+    assertEquals(FilterResponse.ALLOW, memoized[0].query(new TestFilterQuery(0)));
+    assertEquals(FilterResponse.ALLOW, memoized[0].query(new TestFilterQuery(3)));
+  }
+}
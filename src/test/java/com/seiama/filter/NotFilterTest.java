@@ -26,8 +26,10 @@ package com.seiama.filter;
 import com.google.common.testing.EqualsTester;
 import com.seiama.filter.test.TestFilterQuery;
 import com.seiama.filter.test.TestFilters;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -62,4 +64,17 @@ class NotFilterTest {
       )
       .testEquals();
   }
+
+  @Test
+  void testBatchQuery() {
+    final Filter filter = Filter.not(
+      Filter.one(new TestFilters.Variable(0), Filter.not(new TestFilters.Variable(1)), new TestFilters.Variable(2), new TestFilters.Variable(3))
+    );
+    final List<TestFilterQuery> queries = TestFilters.assignments(4);
+    final FilterResponse[] responses = new FilterResponse[queries.size()];
+    filter.query(queries, responses);
+    for (int i = 0; i < queries.size(); i++) {
+      assertEquals(filter.query(queries.get(i)), responses[i]);
+    }
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelFilterTest {
+  @Test
+  void testUnboxOriginalFilter() {
+    final AllFilter original = Filter.all(new TestFilters.Equals(0), new TestFilters.Equals(1));
+    assertSame(original, Filter.parallel(original).filter());
+  }
+
+  @Test
+  void testQueryMatchesOriginal() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final List<Filter> children = new ArrayList<>();
+      for (int i = 0; i < 12; i++) {
+        children.add(new TestFilters.Variable(i % 4));
+        children.add(Filter.abstain());
+      }
+      final List<Filter> filters = List.of(Filter.all(children), Filter.any(children), Filter.one(children));
+      final List<Filter> parallel = List.of(
+        Filter.parallel(Filter.all(children), pool, 1),
+        Filter.parallel(Filter.any(children), pool, 3),
+        Filter.parallel(Filter.one(children), pool, 2)
+      );
+      for (final TestFilterQuery query : TestFilters.assignments(4)) {
+        for (int i = 0; i < filters.size(); i++) {
+          assertEquals(filters.get(i).query(query), parallel.get(i).query(query));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testQueryStopsWhenDecided() {
+    final ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      final AtomicInteger queries = new AtomicInteger();
+      final List<Filter> children = new ArrayList<>();
+      children.add(Filter.deny());
+      for (int i = 0; i < 1000; i++) {
+        children.add(query -> {
+          queries.incrementAndGet();
+          return FilterResponse.ALLOW;
+        });
+      }
+      assertEquals(FilterResponse.DENY, Filter.parallel(Filter.all(children), pool, 1).query(new TestFilterQuery(0)));
+      assertTrue(queries.get() < 1000);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testInvalidThreshold() {
+    assertThrows(IllegalArgumentException.class, () -> Filter.parallel(Filter.all(), ForkJoinPool.commonPool(), 0));
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter;
+
+import com.google.common.testing.EqualsTester;
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import com.seiama.filter.typed.ClassTypedFilter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TypeIndexedFilterTest {
+  @Test
+  void testUnboxOriginalFilter() {
+    final AnyFilter original = Filter.any(new TestFilters.Equals(0), new TestFilters.Equals(1));
+    assertSame(original, Filter.typeIndexed(original).filter());
+  }
+
+  @Test
+  void testSkipsOtherTypes() {
+    final AtomicInteger a = new AtomicInteger();
+    final AtomicInteger b = new AtomicInteger();
+    final Filter filter = Filter.typeIndexed(Filter.any(
+      new Counting<>(QueryA.class, FilterResponse.DENY, a),
+      new Counting<>(QueryB.class, FilterResponse.DENY, b),
+      new Counting<>(QueryA.class, FilterResponse.ALLOW, a),
+      new Counting<>(QueryB.class, FilterResponse.ALLOW, b)
+    ));
+    assertEquals(FilterResponse.ALLOW, filter.query(new QueryA()));
+    assertEquals(2, a.get());
+    assertEquals(0, b.get());
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new TestFilterQuery(0)));
+    assertEquals(2, a.get());
+    assertEquals(0, b.get());
+  }
+
+  @Test
+  void testQueryMatchesOriginal() {
+    final List<Filter> children = List.of(
+      new Counting<>(QueryA.class, FilterResponse.ALLOW, new AtomicInteger()),
+      new TestFilters.Variable(0),
+      new Counting<>(QueryB.class, FilterResponse.DENY, new AtomicInteger()),
+      new Counting<>(QueryA.class, FilterResponse.ALLOW, new AtomicInteger()),
+      new TestFilters.Variable(1),
+      new Counting<>(QueryB.class, FilterResponse.ALLOW, new AtomicInteger())
+    );
+    final List<Filter> filters = List.of(
+      Filter.all(children),
+      Filter.any(children),
+      Filter.one(children)
+    );
+    final List<Filter> indexed = List.of(
+      Filter.typeIndexed(Filter.all(children)),
+      Filter.typeIndexed(Filter.any(children)),
+      Filter.typeIndexed(Filter.one(children))
+    );
+    for (int i = 0; i < filters.size(); i++) {
+      for (final FilterQuery query : List.of(new QueryA(), new QueryB(), new TestFilterQuery(0), new TestFilterQuery(4), new TestFilterQuery(8))) {
+        assertEquals(filters.get(i).query(query), indexed.get(i).query(query));
+      }
+    }
+  }
+
+  @Test
+  void testEquality() {
+    final TestFilters.Equals f0 = new TestFilters.Equals(0);
+    final TestFilters.Equals f1 = new TestFilters.Equals(1);
+    new EqualsTester()
+      .addEqualityGroup(
+        Filter.typeIndexed(Filter.all(f0, f1)),
+        Filter.typeIndexed(Filter.all(f0, f1))
+      )
+      .addEqualityGroup(
+        Filter.typeIndexed(Filter.any(f0, f1))
+      )
+      .testEquals();
+  }
+
+  record QueryA() implements FilterQuery {
+  }
+
+  record QueryB() implements FilterQuery {
+  }
+
+  record Counting<Q extends FilterQuery>(Class<Q> queryType, FilterResponse response, AtomicInteger calls) implements ClassTypedFilter<Q> {
+    @Override
+    public FilterResponse typedQuery(final Q query) {
+      this.calls.incrementAndGet();
+      return this.response;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.test.TestFilterQuery;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+  @Test
+  void testFalsePositiveRate() {
+    final Random random = new Random(0);
+    final BloomFilter<TestFilterQuery> filter = BloomFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, 100_000, 0.001);
+    for (long key = 0; key < 100_000; key++) {
+      filter.add(key * 2);
+    }
+    for (long key = 0; key < 100_000; key++) {
+      assertTrue(filter.mightContain(key * 2));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 1_000_000; i++) {
+      if (filter.mightContain(random.nextLong() | 1)) {
+        falsePositives++;
+      }
+    }
+    final double rate = falsePositives / 1_000_000.0;
+    assertTrue(rate < 0.0015, () -> "false positive rate " + rate);
+    final double estimated = filter.estimatedFalsePositiveRate();
+    assertTrue(estimated > 0.0005 && estimated < 0.002, () -> "estimated false positive rate " + estimated);
+    assertTrue(filter.hashFunctions() >= 10);
+    assertTrue(filter.memoryUsage() < 100_000 * 2);
+  }
+
+  @Test
+  void testInFrontOf() {
+    final BloomFilter<TestFilterQuery> bloom = BloomFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, 100, 0.01);
+    final LongSetFilter<TestFilterQuery> exact = LongSetFilter.create(TestFilterQuery.class, TestFilterQuery::value);
+    for (long key = 0; key < 100; key += 3) {
+      bloom.add(key);
+      exact.add(key);
+    }
+    final Filter filter = bloom.inFrontOf(exact);
+    assertEquals(Filter.all(bloom, exact), filter);
+    for (int value = -100; value < 200; value++) {
+      final TestFilterQuery query = new TestFilterQuery(value);
+      assertEquals(exact.query(query), filter.query(query));
+      if (exact.query(query) == FilterResponse.ALLOW) {
+        assertEquals(FilterResponse.ABSTAIN, bloom.query(query));
+      }
+    }
+  }
+
+  @Test
+  void testStrings() {
+    final BloomFilter<TestFilterQuery> filter = BloomFilter.ofStrings(TestFilterQuery.class, query -> Integer.toString(query.value()), 10, 0.01);
+    filter.add("5");
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new TestFilterQuery(5)));
+    assertTrue(filter.mightContain(new StringBuilder("5")));
+    assertFalse(filter.mightContain("6") && filter.mightContain("7") && filter.mightContain("8"));
+    assertThrows(IllegalStateException.class, () -> filter.add(5));
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, -1, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, 10, 0));
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, Long.MAX_VALUE, 0.01));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.test.TestFilterQuery;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongSetFilterTest {
+  @Test
+  void testQuery() {
+    final LongSetFilter<TestFilterQuery> filter = LongSetFilter.create(TestFilterQuery.class, TestFilterQuery::value);
+    filter.addAll(1, 2, 3);
+    assertEquals(FilterResponse.ALLOW, filter.query(new TestFilterQuery(2)));
+    assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(4)));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+  }
+
+  @Test
+  void testSpecialKeys() {
+    final LongSetFilter<TestFilterQuery> filter = LongSetFilter.create(TestFilterQuery.class, TestFilterQuery::value);
+    assertFalse(filter.contains(0));
+    assertTrue(filter.add(0));
+    assertTrue(filter.add(Long.MIN_VALUE));
+    assertFalse(filter.add(0));
+    assertEquals(2, filter.size());
+    assertTrue(filter.contains(0));
+    assertTrue(filter.contains(Long.MIN_VALUE));
+    assertTrue(filter.remove(Long.MIN_VALUE));
+    assertFalse(filter.contains(Long.MIN_VALUE));
+    assertEquals(1, filter.size());
+  }
+
+  @Test
+  void testMatchesHashSet() {
+    final Random random = new Random(0);
+    final LongSetFilter<TestFilterQuery> filter = LongSetFilter.create(TestFilterQuery.class, TestFilterQuery::value);
+    final Set<Long> expected = new HashSet<>();
+    for (int i = 0; i < 200_000; i++) {
+      final long key = random.nextInt(10_000) - 5_000L;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), filter.remove(key));
+      } else {
+        assertEquals(expected.add(key), filter.add(key));
+      }
+      assertEquals(expected.size(), filter.size());
+    }
+    for (long key = -5_000; key < 5_000; key++) {
+      assertEquals(expected.contains(key), filter.contains(key));
+    }
+    filter.clear();
+    assertEquals(0, filter.size());
+    assertFalse(filter.contains(expected.iterator().next()));
+  }
+
+  @Test
+  void testConcurrentQueries() throws InterruptedException {
+    final LongSetFilter<TestFilterQuery> filter = LongSetFilter.create(TestFilterQuery.class, TestFilterQuery::value);
+    // even keys are added and never removed, odd keys come and go
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicReference<String> failure = new AtomicReference<>();
+    final Thread reader = new Thread(() -> {
+      final Random random = new Random(1);
+      while (running.get()) {
+        final int key = random.nextInt(100_000) * 2;
+        if (filter.contains(key) && !filter.contains(key)) {
+          failure.set("lost " + key);
+        }
+      }
+    });
+    reader.start();
+    for (int key = 0; key < 200_000; key++) {
+      filter.add(key);
+      if (key % 2 == 1) {
+        filter.remove(key - 2);
+      }
+    }
+    running.set(false);
+    reader.join();
+    assertNull(failure.get());
+    for (int key = 0; key < 200_000; key += 2) {
+      assertTrue(filter.contains(key));
+    }
+  }
+}
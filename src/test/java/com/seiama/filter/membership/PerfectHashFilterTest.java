@@ -0,0 +1,152 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.membership;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.test.TestFilterQuery;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerfectHashFilterTest {
+  @Test
+  void testLongs() {
+    final Random random = new Random(0);
+    final long[] keys = new long[100_000];
+    final Set<Long> expected = new HashSet<>();
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+      expected.add(keys[i]);
+    }
+    final PerfectHashKeys set = PerfectHashKeys.ofLongs(keys);
+    assertEquals(expected.size(), set.size());
+    for (final long key : keys) {
+      assertTrue(set.contains(key));
+    }
+    for (int i = 0; i < 100_000; i++) {
+      final long key = random.nextLong();
+      assertEquals(expected.contains(key), set.contains(key));
+    }
+  }
+
+  @Test
+  void testStrings() {
+    final List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add("key" + i);
+    }
+    keys.add("key0");
+    final PerfectHashKeys set = PerfectHashKeys.ofStrings(keys);
+    assertEquals(1000, set.size());
+    assertTrue(set.contains(new StringBuilder("key999")));
+    assertFalse(set.contains("key1000"));
+    assertFalse(set.contains(""));
+    assertThrows(IllegalStateException.class, () -> set.contains(1));
+  }
+
+  @Test
+  void testEmpty() {
+    final PerfectHashKeys set = PerfectHashKeys.ofLongs();
+    assertEquals(0, set.size());
+    assertFalse(set.contains(0));
+  }
+
+  @Test
+  void testQuery() {
+    final PerfectHashFilter<TestFilterQuery> filter = PerfectHashFilter.ofLongs(TestFilterQuery.class, TestFilterQuery::value, PerfectHashKeys.ofLongs(1, 2, 3));
+    assertEquals(FilterResponse.ALLOW, filter.query(new TestFilterQuery(3)));
+    assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(4)));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+    final PerfectHashFilter<TestFilterQuery> strings = PerfectHashFilter.ofStrings(TestFilterQuery.class, query -> Integer.toString(query.value()), PerfectHashKeys.ofStrings(List.of("1", "2")));
+    assertEquals(FilterResponse.ALLOW, strings.query(new TestFilterQuery(2)));
+    assertEquals(FilterResponse.DENY, strings.query(new TestFilterQuery(3)));
+    assertThrows(IllegalArgumentException.class, () -> PerfectHashFilter.ofStrings(TestFilterQuery.class, query -> "", PerfectHashKeys.ofLongs(1)));
+  }
+
+  @Test
+  void testWriteAndRead() throws IOException {
+    final List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      keys.add(Integer.toHexString(i * 31));
+    }
+    final PerfectHashKeys set = PerfectHashKeys.ofStrings(keys);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    set.writeTo(new DataOutputStream(bytes));
+    final PerfectHashKeys read = PerfectHashKeys.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(set.size(), read.size());
+    for (final String key : keys) {
+      assertTrue(read.contains(key));
+    }
+    assertFalse(read.contains("not a key"));
+
+    final byte[] corrupt = bytes.toByteArray();
+    corrupt[corrupt.length / 3] ^= 0x10;
+    assertThrows(IOException.class, () -> PerfectHashKeys.readFrom(new DataInputStream(new ByteArrayInputStream(corrupt))));
+  }
+
+  @Test
+  void testCorruptLengths() throws IOException {
+    // levels, bits and fingerprints claiming far more words than the input holds
+    final ByteArrayOutputStream levels = new ByteArrayOutputStream();
+    final DataOutputStream levelsOut = new DataOutputStream(levels);
+    levelsOut.writeInt(1);
+    levelsOut.writeBoolean(false);
+    levelsOut.writeInt(Integer.MAX_VALUE);
+    assertThrows(IOException.class, () -> PerfectHashKeys.readFrom(new DataInputStream(new ByteArrayInputStream(levels.toByteArray()))));
+    final ByteArrayOutputStream bits = new ByteArrayOutputStream();
+    final DataOutputStream bitsOut = new DataOutputStream(bits);
+    bitsOut.writeInt(1);
+    bitsOut.writeBoolean(false);
+    bitsOut.writeInt(2);
+    bitsOut.writeInt(0);
+    bitsOut.writeInt(Integer.MAX_VALUE);
+    bitsOut.writeLong(-1);
+    assertThrows(IOException.class, () -> PerfectHashKeys.readFrom(new DataInputStream(new ByteArrayInputStream(bits.toByteArray()))));
+    final ByteArrayOutputStream fingerprints = new ByteArrayOutputStream();
+    final DataOutputStream fingerprintsOut = new DataOutputStream(fingerprints);
+    fingerprintsOut.writeInt(1);
+    fingerprintsOut.writeBoolean(false);
+    fingerprintsOut.writeInt(2);
+    fingerprintsOut.writeInt(0);
+    fingerprintsOut.writeInt(1);
+    fingerprintsOut.writeLong(1);
+    fingerprintsOut.writeInt(Integer.MAX_VALUE);
+    assertThrows(IOException.class, () -> PerfectHashKeys.readFrom(new DataInputStream(new ByteArrayInputStream(fingerprints.toByteArray()))));
+  }
+}
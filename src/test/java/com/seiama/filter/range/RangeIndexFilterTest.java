@@ -0,0 +1,96 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.range;
+
+import com.seiama.filter.Filter;
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import com.seiama.filter.test.TestFilterQuery;
+import com.seiama.filter.test.TestFilters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RangeIndexFilterTest {
+  private static final ToLongFunction<TestFilterQuery> VALUE = TestFilterQuery::value;
+
+  @Test
+  void testRangeFilter() {
+    final RangeFilter<TestFilterQuery> above = RangeFilter.above(TestFilterQuery.class, VALUE, 3);
+    assertEquals(FilterResponse.DENY, above.query(new TestFilterQuery(3)));
+    assertEquals(FilterResponse.ALLOW, above.query(new TestFilterQuery(4)));
+    assertEquals(FilterResponse.ABSTAIN, above.query(new FilterQuery() {
+    }));
+    final RangeFilter<TestFilterQuery> below = RangeFilter.below(TestFilterQuery.class, VALUE, Long.MIN_VALUE);
+    assertEquals(FilterResponse.DENY, below.query(new TestFilterQuery(Integer.MIN_VALUE)));
+  }
+
+  @Test
+  void testDetection() {
+    final Filter between = Filter.all(RangeFilter.above(TestFilterQuery.class, VALUE, 10), RangeFilter.below(TestFilterQuery.class, VALUE, 20));
+    final Filter mixed = Filter.all(RangeFilter.above(TestFilterQuery.class, VALUE, 10), new TestFilters.Equals(15));
+    final Filter other = Filter.all(RangeFilter.above(TestFilterQuery.class, VALUE, 10), RangeFilter.below(TestFilterQuery.class, TestFilterQuery::value, 20));
+    final RangeIndexFilter filter = RangeIndexFilter.of(Filter.any(between, mixed, other, RangeFilter.between(TestFilterQuery.class, VALUE, 30, 40)));
+    assertEquals(2, filter.indexed());
+    assertEquals(List.of(mixed, other), filter.filters());
+    assertEquals(List.of(between), filter.matching(new TestFilterQuery(11)));
+    assertEquals(List.of(), filter.matching(new TestFilterQuery(20)));
+    assertEquals(FilterResponse.ALLOW, filter.query(new TestFilterQuery(35)));
+    assertEquals(FilterResponse.DENY, filter.query(new TestFilterQuery(25)));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+  }
+
+  @Test
+  void testMatchesAny() {
+    final Random random = new Random(0);
+    final List<Filter> children = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      final long min = random.nextInt(10_000);
+      final long max = min + random.nextInt(200) - 10;
+      children.add(switch (random.nextInt(3)) {
+        case 0 -> RangeFilter.between(TestFilterQuery.class, VALUE, min, max);
+        case 1 -> Filter.all(RangeFilter.above(TestFilterQuery.class, VALUE, min - 1), RangeFilter.below(TestFilterQuery.class, VALUE, max + 1));
+        default -> Filter.all(RangeFilter.below(TestFilterQuery.class, VALUE, max + 1), RangeFilter.between(TestFilterQuery.class, VALUE, min, Long.MAX_VALUE));
+      });
+    }
+    final Filter any = Filter.any(children);
+    final RangeIndexFilter filter = RangeIndexFilter.any(children);
+    assertEquals(children.size(), filter.indexed());
+    for (int value = -100; value < 10_300; value++) {
+      final TestFilterQuery query = new TestFilterQuery(value);
+      assertEquals(any.query(query), filter.query(query));
+      final List<Filter> expected = children.stream().filter(child -> child.query(query) == FilterResponse.ALLOW).toList();
+      final List<Filter> matching = filter.matching(query);
+      assertEquals(expected.size(), matching.size());
+      assertTrue(new HashSet<>(expected).containsAll(matching));
+    }
+  }
+}
@@ -23,10 +23,54 @@
  */
 package com.seiama.filter.test;
 
+import com.seiama.filter.Filter;
 import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
 import com.seiama.filter.typed.StronglyTypedFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 public class TestFilters {
+  /**
+   * Creates a query for every assignment of responses to {@code variables} {@link Variable}s.
+   */
+  public static List<TestFilterQuery> assignments(final int variables) {
+    int size = 1;
+    for (int i = 0; i < variables; i++) {
+      size *= FilterResponse.values().length;
+    }
+    final List<TestFilterQuery> queries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      queries.add(new TestFilterQuery(i));
+    }
+    return queries;
+  }
+
+  /**
+   * Creates a random tree of all, any, one, not and constant filters, up to {@code depth} levels deep, with
+   * {@link Variable}s below {@code variables} as leaves.
+   */
+  public static Filter random(final Random random, final int variables, final int depth) {
+    final int kind = random.nextInt(depth == 0 ? 2 : 6);
+    return switch (kind) {
+      case 0 -> new Variable(random.nextInt(variables));
+      case 1 -> Filter.always(FilterResponse.values()[random.nextInt(FilterResponse.values().length)]);
+      case 2 -> Filter.not(random(random, variables, depth - 1));
+      case 3 -> Filter.all(random(random, variables, depth - 1, random.nextInt(5)));
+      case 4 -> Filter.any(random(random, variables, depth - 1, random.nextInt(5)));
+      default -> Filter.one(random(random, variables, depth - 1, random.nextInt(5)));
+    };
+  }
+
+  private static List<Filter> random(final Random random, final int variables, final int depth, final int size) {
+    final List<Filter> filters = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      filters.add(random(random, variables, depth));
+    }
+    return filters;
+  }
+
   interface Abstract extends StronglyTypedFilter<TestFilterQuery> {
     @Override
     default boolean queryableWith(final FilterQuery query) {
@@ -54,4 +98,27 @@ public class TestFilters {
       return query.value() > this.value();
     }
   }
+
+  /**
+   * A filter which responds with the {@code index}-th base-3 digit of the query value, where {@code 0} is
+   * {@link FilterResponse#ALLOW}, {@code 1} is {@link FilterResponse#ABSTAIN} and {@code 2} is {@link FilterResponse#DENY}.
+   * Other queries are abstained from.
+   *
+   * <p>Querying with every value in {@code [0, 3^n)} covers every assignment of responses to {@code n} variables.</p>
+   */
+  public record Variable(int index) implements Filter {
+    private static final FilterResponse[] RESPONSES = FilterResponse.values();
+
+    @Override
+    public FilterResponse query(final FilterQuery query) {
+      if (!(query instanceof final TestFilterQuery testQuery)) {
+        return FilterResponse.ABSTAIN;
+      }
+      int value = testQuery.value();
+      for (int i = 0; i < this.index; i++) {
+        value /= RESPONSES.length;
+      }
+      return RESPONSES[value % RESPONSES.length];
+    }
+  }
 }
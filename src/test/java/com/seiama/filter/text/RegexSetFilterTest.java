@@ -0,0 +1,123 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RegexSetFilterTest {
+  private static final List<Pattern> PATTERNS = List.of(
+    Pattern.compile("abc"),
+    Pattern.compile("a+bcd?"),
+    Pattern.compile("ca*t\\.dog"),
+    Pattern.compile("x(ab|c)y"),
+    Pattern.compile("(a)b\\1"),
+    Pattern.compile("ab|cd"),
+    Pattern.compile("[ab]{2}c"),
+    Pattern.compile("b{2}\\Qd.c\\E+"),
+    Pattern.compile("\\x61\\u0062cc"),
+    Pattern.compile("BAD", Pattern.CASE_INSENSITIVE),
+    Pattern.compile("d.c", Pattern.LITERAL),
+    Pattern.compile("^dd\\d*$")
+  );
+
+  @Test
+  void testRequiredLiterals() {
+    assertEquals("abc", RegexLiterals.required(PATTERNS.get(0)));
+    assertEquals("bc", RegexLiterals.required(PATTERNS.get(1)));
+    assertEquals("t.dog", RegexLiterals.required(PATTERNS.get(2)));
+    assertEquals("x", RegexLiterals.required(PATTERNS.get(3)));
+    assertEquals("b", RegexLiterals.required(PATTERNS.get(4)));
+    assertNull(RegexLiterals.required(PATTERNS.get(5)));
+    assertEquals("c", RegexLiterals.required(PATTERNS.get(6)));
+    assertEquals("d.c", RegexLiterals.required(PATTERNS.get(7)));
+    assertEquals("cc", RegexLiterals.required(PATTERNS.get(8)));
+    assertNull(RegexLiterals.required(PATTERNS.get(9)));
+    assertEquals("d.c", RegexLiterals.required(PATTERNS.get(10)));
+    assertEquals("dd", RegexLiterals.required(PATTERNS.get(11)));
+    assertNull(RegexLiterals.required(Pattern.compile("(?i)abc")));
+  }
+
+  @Test
+  void testQuotedCharacterClass() {
+    // a bracket quoted in a character class does not close it
+    final Pattern pattern = Pattern.compile("[\\Q]x\\E]abc");
+    assertEquals("abc", RegexLiterals.required(pattern));
+    final RegexSetFilter<Text> filter = RegexSetFilter.find(Text.class, Text::text, List.of(pattern));
+    assertEquals(FilterResponse.ALLOW, filter.query(new Text("xabc")));
+    assertEquals(FilterResponse.ALLOW, filter.query(new Text("]abc")));
+    assertEquals(FilterResponse.DENY, filter.query(new Text("abc")));
+  }
+
+  @Test
+  void testQuantifiedSurrogatePair() {
+    final Pattern pattern = Pattern.compile("a\uD83D\uDE00?b");
+    assertEquals("a", RegexLiterals.required(pattern));
+    assertEquals("a\uD83D\uDE00", RegexLiterals.required(Pattern.compile("a\uD83D\uDE00+b")));
+    final RegexSetFilter<Text> filter = RegexSetFilter.find(Text.class, Text::text, List.of(pattern));
+    assertEquals(FilterResponse.ALLOW, filter.query(new Text("ab")));
+    assertEquals(FilterResponse.ALLOW, filter.query(new Text("a\uD83D\uDE00b")));
+  }
+
+  @Test
+  void testQuery() {
+    final RegexSetFilter<Text> filter = RegexSetFilter.find(Text.class, Text::text, PATTERNS);
+    assertEquals(FilterResponse.ALLOW, filter.query(new Text("zzbad")));
+    assertEquals(FilterResponse.DENY, filter.query(new Text("zzz")));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+    assertEquals(List.of(PATTERNS.get(0), PATTERNS.get(1), PATTERNS.get(5), PATTERNS.get(6)), filter.matching("abc"));
+    assertEquals(10, filter.prefiltered());
+  }
+
+  @Test
+  void testMatchesNaive() {
+    final Random random = new Random(0);
+    final RegexSetFilter<Text> find = RegexSetFilter.find(Text.class, Text::text, PATTERNS);
+    final RegexSetFilter<Text> entire = RegexSetFilter.matchEntire(Text.class, Text::text, PATTERNS);
+    final String alphabet = "abcdtxy.BAD0";
+    for (int i = 0; i < 20_000; i++) {
+      final StringBuilder text = new StringBuilder();
+      for (int j = random.nextInt(12); j > 0; j--) {
+        text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      final List<Pattern> found = PATTERNS.stream().filter(pattern -> pattern.matcher(text).find()).toList();
+      final List<Pattern> matched = PATTERNS.stream().filter(pattern -> pattern.matcher(text).matches()).toList();
+      assertEquals(found, find.matching(text));
+      assertEquals(matched, entire.matching(text));
+      assertEquals(!found.isEmpty(), find.matches(text));
+      assertEquals(!matched.isEmpty(), entire.matches(text));
+    }
+  }
+
+  record Text(String text) implements FilterQuery {
+  }
+}
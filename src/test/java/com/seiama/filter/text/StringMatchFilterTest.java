@@ -0,0 +1,97 @@
+/*
+ * This file is part of filter, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.filter.text;
+
+import com.seiama.filter.FilterQuery;
+import com.seiama.filter.FilterResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringMatchFilterTest {
+  @Test
+  void testPrefix() {
+    final PrefixFilter<TextQuery> filter = PrefixFilter.of(TextQuery.class, TextQuery::text, List.of("/api/", "/api/v2/", "/static"));
+    assertEquals(FilterResponse.ALLOW, filter.query(new TextQuery("/api/users")));
+    assertEquals(FilterResponse.ALLOW, filter.query(new TextQuery("/static")));
+    assertEquals(FilterResponse.DENY, filter.query(new TextQuery("/ap")));
+    assertEquals(FilterResponse.DENY, filter.query(new TextQuery("/stat")));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+    assertEquals(List.of("/api/", "/api/v2/"), filter.matching("/api/v2/users"));
+  }
+
+  @Test
+  void testSubstring() {
+    final SubstringFilter<TextQuery> filter = SubstringFilter.of(TextQuery.class, TextQuery::text, List.of("he", "she", "his", "hers"));
+    assertEquals(FilterResponse.ALLOW, filter.query(new TextQuery("ushers")));
+    assertEquals(FilterResponse.DENY, filter.query(new TextQuery("hi, s")));
+    assertEquals(List.of("he", "she", "hers"), filter.matching("ushers"));
+  }
+
+  @Test
+  void testEmpty() {
+    assertFalse(PrefixFilter.of(TextQuery.class, TextQuery::text, List.of()).matches("text"));
+    assertFalse(SubstringFilter.of(TextQuery.class, TextQuery::text, List.of()).matches("text"));
+    assertTrue(PrefixFilter.of(TextQuery.class, TextQuery::text, List.of("")).matches(""));
+    assertTrue(SubstringFilter.of(TextQuery.class, TextQuery::text, List.of("x", "")).matches("text"));
+  }
+
+  @Test
+  void testMatchesNaive() {
+    final Random random = new Random(0);
+    final List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      patterns.add(randomText(random, 1 + random.nextInt(5)));
+    }
+    final PrefixFilter<TextQuery> prefixes = PrefixFilter.of(TextQuery.class, TextQuery::text, patterns);
+    final SubstringFilter<TextQuery> substrings = SubstringFilter.of(TextQuery.class, TextQuery::text, patterns);
+    for (int i = 0; i < 2000; i++) {
+      final String text = randomText(random, random.nextInt(30));
+      final List<String> expectedPrefixes = prefixes.prefixes().stream().filter(text::startsWith).toList();
+      final List<String> expectedSubstrings = substrings.substrings().stream().filter(text::contains).toList();
+      assertEquals(expectedPrefixes, prefixes.matching(text));
+      assertEquals(expectedSubstrings, substrings.matching(text));
+      assertEquals(!expectedPrefixes.isEmpty(), prefixes.matches(text));
+      assertEquals(!expectedSubstrings.isEmpty(), substrings.matches(text));
+    }
+  }
+
+  private static String randomText(final Random random, final int length) {
+    final StringBuilder text = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      // a small alphabet, so that patterns overlap
+      text.append((char) ('a' + random.nextInt(4)));
+    }
+    return text.toString();
+  }
+
+  record TextQuery(String text) implements FilterQuery {
+  }
+}
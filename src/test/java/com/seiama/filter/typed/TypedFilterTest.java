@@ -54,6 +54,22 @@ class TypedFilterTest {
     }));
   }
 
+  @Test
+  void testClassTypedQueryableWith() {
+    final ClassTypedFilter<A> filter = new AllowClassA();
+
+    class RandomA implements A {
+    }
+
+    assertEquals(A.class, filter.queryType());
+    assertTrue(filter.queryableWith(new RandomA()));
+    assertFalse(filter.queryableWith(new FilterQuery() {
+    }));
+    assertEquals(FilterResponse.ALLOW, filter.query(new RandomA()));
+    assertEquals(FilterResponse.ABSTAIN, filter.query(new FilterQuery() {
+    }));
+  }
+
   private interface A extends FilterQuery {
   }
 
@@ -68,4 +84,16 @@ class TypedFilterTest {
       return FilterResponse.ALLOW;
     }
   }
+
+  private static class AllowClassA implements ClassTypedFilter<A> {
+    @Override
+    public Class<A> queryType() {
+      return A.class;
+    }
+
+    @Override
+    public FilterResponse typedQuery(final A query) {
+      return FilterResponse.ALLOW;
+    }
+  }
 }